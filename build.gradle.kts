@@ -4,6 +4,7 @@ plugins {
   alias(libs.plugins.indra.crossdoc)
   alias(libs.plugins.indra.licenser.spotless)
   alias(libs.plugins.indra.publishing.sonatype)
+  alias(libs.plugins.jmh)
   alias(libs.plugins.nexusPublish)
   alias(libs.plugins.spotless)
 }
@@ -15,6 +16,17 @@ dependencies {
   testRuntimeOnly(libs.junit.engine)
   testRuntimeOnly(libs.junit.launcher)
   checkstyle(libs.stylecheck)
+  jmh(libs.jmh.core)
+  jmhAnnotationProcessor(libs.jmh.generator)
+}
+
+jmh {
+  jmhVersion = libs.versions.jmh.get()
+  profilers.add("gc") // allocation rates, to back up allocation-free read paths
+  resultFormat = "JSON"
+  resultsFile = layout.buildDirectory.file("results/jmh/results.json")
+  // e.g. -PjmhIncludes=OptionStateBenchmark to run a single suite
+  providers.gradleProperty("jmhIncludes").orNull?.let { includes.add(it) }
 }
 
 spotless {
@@ -30,7 +42,7 @@ spotless {
 sourceSets {
   main {
     multirelease {
-      alternateVersions(9)
+      alternateVersions(9, 11)
       moduleName("net.kyori.option")
       requireAllPackagesExported()
     }
@@ -77,6 +89,25 @@ indraCrossdoc {
   baseUrl().set(providers.gradleProperty("javadocPublishRoot"))
 }
 
+tasks.test {
+  useJUnitPlatform {
+    excludeTags("metrics") // metrics are enabled once per JVM, so these run in metricsTest
+  }
+}
+
+val metricsTest by tasks.registering(Test::class) {
+  description = "Runs the test suite with read metrics enabled."
+  group = LifecycleBasePlugin.VERIFICATION_GROUP
+  testClassesDirs = sourceSets.test.get().output.classesDirs
+  classpath = sourceSets.test.get().runtimeClasspath
+  useJUnitPlatform()
+  systemProperty("net.kyori.option.metrics", "true") // also exercises the instrumented read paths
+}
+
+tasks.check {
+  dependsOn(metricsTest)
+}
+
 tasks.jar {
   indraGit.applyVcsInformationToManifest(manifest)
 }
@@ -0,0 +1,50 @@
+/*
+ * This file is part of option, licensed under the MIT License.
+ *
+ * Copyright (c) 2023 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.option;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+final class BenchmarkOptions {
+  private static final AtomicInteger COUNTER = new AtomicInteger();
+
+  private BenchmarkOptions() {
+  }
+
+  @SuppressWarnings("unchecked")
+  static Option<Boolean>[] booleans(final int count) {
+    final Option<Boolean>[] options = new Option[count];
+    for (int i = 0; i < count; i++) {
+      options[i] = Option.booleanOption("option:benchmark/" + COUNTER.getAndIncrement(), false);
+    }
+    return options;
+  }
+
+  static OptionState stateOf(final Option<Boolean>[] options) {
+    final OptionState.Builder builder = OptionState.optionState();
+    for (final Option<Boolean> option : options) {
+      builder.value(option, true);
+    }
+    return builder.build();
+  }
+}
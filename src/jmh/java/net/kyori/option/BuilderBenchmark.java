@@ -0,0 +1,91 @@
+/*
+ * This file is part of option, licensed under the MIT License.
+ *
+ * Copyright (c) 2023 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.option;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Construction of option states, from individual values and from an existing state.
+ *
+ * <p>{@code override} and {@code overlay} derive a state changing a single option, by copying and by layering respectively.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class BuilderBenchmark {
+  @Param({"10", "100", "1000", "10000"})
+  private int optionCount;
+
+  private Option<Boolean>[] options;
+  private OptionState existing;
+  private OptionState override;
+
+  @Setup
+  public void setup() {
+    this.options = BenchmarkOptions.booleans(this.optionCount);
+    this.existing = BenchmarkOptions.stateOf(this.options);
+    this.override = OptionState.optionState()
+      .value(this.options[0], false)
+      .build();
+  }
+
+  @Benchmark
+  public OptionState build() {
+    return BenchmarkOptions.stateOf(this.options);
+  }
+
+  @Benchmark
+  public OptionState copy() {
+    return OptionState.optionState()
+      .values(this.existing)
+      .build();
+  }
+
+  @Benchmark
+  public OptionState override() {
+    return OptionState.optionState()
+      .values(this.existing)
+      .values(this.override)
+      .build();
+  }
+
+  @Benchmark
+  public OptionState overlay() {
+    return OptionState.overlay(this.existing, this.override);
+  }
+}
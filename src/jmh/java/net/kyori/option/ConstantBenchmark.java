@@ -0,0 +1,75 @@
+/*
+ * This file is part of option, licensed under the MIT License.
+ *
+ * Copyright (c) 2023 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.option;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Checking a disabled flag before some work, through a snapshot, a live state and a constant handle.
+ *
+ * <p>{@link #constant()} should match {@link #baseline()}, as the flag is folded to {@code false} and the check and the guarded work are removed from the compiled method. Add {@code -prof perfasm} to inspect the generated code, or, without perf, {@code -jvmArgsAppend "-XX:+UnlockDiagnosticVMOptions -XX:+PrintInlining"}: the C2 compile of the constant stub ends at a constant method handle and no longer contains the guarded call.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ConstantBenchmark {
+  private static final Option<Boolean> FLAG = Option.booleanOption("benchmark:constant", false);
+  private static final LiveOptionState LIVE = OptionState.live(OptionState.optionState().value(FLAG, false).build());
+  private static final MethodHandle CONSTANT = LIVE.constant(FLAG);
+
+  private final OptionState snapshot = LIVE.snapshot();
+
+  @Benchmark
+  public void baseline() {
+  }
+
+  @Benchmark
+  public void snapshot() {
+    if (this.snapshot.booleanValue(FLAG)) Blackhole.consumeCPU(100);
+  }
+
+  @Benchmark
+  public void live() {
+    if (LIVE.booleanValue(FLAG)) Blackhole.consumeCPU(100);
+  }
+
+  @Benchmark
+  public void constant() throws Throwable {
+    if ((boolean) CONSTANT.invokeExact()) Blackhole.consumeCPU(100);
+  }
+}
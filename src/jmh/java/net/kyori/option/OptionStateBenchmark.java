@@ -0,0 +1,115 @@
+/*
+ * This file is part of option, licensed under the MIT License.
+ *
+ * Copyright (c) 2023 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.option;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Read paths of a built option state.
+ *
+ * <p>With {@code hit} unset, the queried options are registered but absent from the state, so every read falls back to the default.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class OptionStateBenchmark {
+  @Param({"10", "100", "1000", "10000"})
+  private int optionCount;
+
+  @Param({"true", "false"})
+  private boolean hit;
+
+  private Option<Boolean>[] queried;
+  private OptionState state;
+
+  @Setup
+  public void setup() {
+    final Option<Boolean>[] present = BenchmarkOptions.booleans(this.optionCount);
+    this.queried = this.hit ? present : BenchmarkOptions.booleans(this.optionCount);
+    this.state = BenchmarkOptions.stateOf(present);
+  }
+
+  @State(Scope.Thread)
+  public static class Cursor {
+    private int index;
+
+    <T> T next(final T[] options) {
+      final int index = this.index;
+      this.index = index + 1 == options.length ? 0 : index + 1;
+      return options[index];
+    }
+  }
+
+  @Benchmark
+  public Boolean value(final Cursor cursor) {
+    return this.state.value(cursor.next(this.queried));
+  }
+
+  @Benchmark
+  public boolean booleanValue(final Cursor cursor) {
+    return this.state.booleanValue(cursor.next(this.queried));
+  }
+
+  @Benchmark
+  public boolean has(final Cursor cursor) {
+    return this.state.has(cursor.next(this.queried));
+  }
+
+  @Benchmark
+  public long stream() {
+    return this.state.stream().filter(entry -> (Boolean) entry.value()).count();
+  }
+
+  @Benchmark
+  public long parallelStream() {
+    return this.state.stream().parallel().filter(entry -> (Boolean) entry.value()).count();
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  public Boolean valueContended(final Cursor cursor) {
+    return this.state.value(cursor.next(this.queried));
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  public boolean hasContended(final Cursor cursor) {
+    return this.state.has(cursor.next(this.queried));
+  }
+}
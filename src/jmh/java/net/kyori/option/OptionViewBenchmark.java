@@ -0,0 +1,86 @@
+/*
+ * This file is part of option, licensed under the MIT License.
+ *
+ * Copyright (c) 2023 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.option;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reading a fixed group of options from a state, directly and through a bound view.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class OptionViewBenchmark {
+  @Param({"5", "20"})
+  private int viewSize;
+
+  @Param({"100", "10000"})
+  private int optionCount;
+
+  private Option<Boolean>[] viewed;
+  private OptionState state;
+  private OptionView view;
+
+  @Setup
+  public void setup() {
+    final Option<Boolean>[] options = BenchmarkOptions.booleans(this.optionCount);
+    this.state = BenchmarkOptions.stateOf(options);
+    this.viewed = Arrays.copyOf(options, this.viewSize);
+    this.view = OptionView.optionView(this.viewed);
+  }
+
+  @Benchmark
+  public int state() {
+    int enabled = 0;
+    for (final Option<Boolean> option : this.viewed) {
+      if (this.state.booleanValue(option)) enabled++;
+    }
+    return enabled;
+  }
+
+  @Benchmark
+  public int bound() {
+    final OptionView.Bound bound = this.view.bind(this.state);
+    int enabled = 0;
+    for (int i = 0; i < this.viewSize; i++) {
+      if (bound.booleanValue(i)) enabled++;
+    }
+    return enabled;
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * This file is part of option, licensed under the MIT License.
+ *
+ * Copyright (c) 2023 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.option;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Evaluating a rollout option for a new subject on every call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class RolloutBenchmark {
+  private static final Option<Rollout> ROLLOUT = Option.rolloutOption("benchmark:rollout", Rollout.percentage(0));
+
+  private OptionState state;
+  private OptionState.Versioned versioned;
+
+  @Setup
+  public void setup() {
+    this.state = OptionState.optionState()
+      .value(ROLLOUT, Rollout.percentage(10))
+      .build();
+    this.versioned = OptionState.versionedOptionState()
+      .version(1, builder -> builder.value(ROLLOUT, Rollout.percentage(10)))
+      .build()
+      .at(1);
+  }
+
+  @State(Scope.Thread)
+  public static class Subjects {
+    private long next;
+  }
+
+  @Benchmark
+  public boolean enabledFor(final Subjects subjects) {
+    return this.state.enabledFor(ROLLOUT, subjects.next++);
+  }
+
+  @Benchmark
+  public boolean enabledForVersioned(final Subjects subjects) {
+    return this.versioned.enabledFor(ROLLOUT, subjects.next++);
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * This file is part of option, licensed under the MIT License.
+ *
+ * Copyright (c) 2023 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.option;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Building and querying versioned states, where the first version sets every option and each later version changes a tenth of them.
+ *
+ * <p>The multi-versioned state adds a second dimension of {@value #EDITIONS} editions, each changing one option from every version on.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class VersionedBenchmark {
+  @Param({"10", "100", "1000", "10000"})
+  private int optionCount;
+
+  @Param({"1", "10", "100", "1000"})
+  private int versionCount;
+
+  static final int EDITIONS = 4;
+
+  private Option<Boolean>[] options;
+  private OptionState.Versioned versioned;
+  private TreeMap<Integer, OptionState> layers;
+  private Integer[] queriedVersions; // declared versions and the gaps between them
+  private OptionState.MultiVersioned multiVersioned;
+
+  @Setup
+  public void setup() {
+    this.options = BenchmarkOptions.booleans(this.optionCount);
+    this.versioned = this.buildVersioned();
+    this.layers = new TreeMap<>(this.versioned.childStates());
+    this.queriedVersions = new Integer[this.versionCount * 2];
+    for (int i = 0; i < this.queriedVersions.length; i++) {
+      this.queriedVersions[i] = i;
+    }
+    this.multiVersioned = this.buildMultiVersioned();
+  }
+
+  private OptionState.Versioned buildVersioned() {
+    final OptionState.VersionedBuilder builder = OptionState.versionedOptionState();
+    final int changesPerVersion = Math.max(1, this.optionCount / 10);
+    for (int version = 0; version < this.versionCount; version++) {
+      final int first = version * changesPerVersion;
+      final int count = version == 0 ? this.optionCount : changesPerVersion;
+      final boolean value = (version & 1) == 0;
+      builder.version(version * 2, b -> {
+        for (int i = 0; i < count; i++) {
+          b.value(this.options[(first + i) % this.optionCount], value);
+        }
+      });
+    }
+    return builder.build();
+  }
+
+  private OptionState.MultiVersioned buildMultiVersioned() {
+    final OptionState.MultiVersionedBuilder builder = OptionState.multiVersionedOptionState(2);
+    for (final Map.Entry<Integer, OptionState> layer : this.versioned.childStates().entrySet()) {
+      builder.version(new int[] {layer.getKey(), 0}, b -> b.values(layer.getValue()));
+    }
+    for (int edition = 1; edition < EDITIONS; edition++) {
+      final Option<Boolean> option = this.options[edition % this.optionCount];
+      builder.version(new int[] {0, edition}, b -> b.value(option, true));
+    }
+    return builder.build();
+  }
+
+  @Benchmark
+  public OptionState.Versioned build() {
+    return this.buildVersioned();
+  }
+
+  @Benchmark
+  public OptionState.Versioned at(final OptionStateBenchmark.Cursor cursor) {
+    return this.versioned.at(cursor.next(this.queriedVersions));
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  public OptionState.Versioned atContended(final OptionStateBenchmark.Cursor cursor) {
+    return this.versioned.at(cursor.next(this.queriedVersions));
+  }
+
+  @Benchmark
+  public OptionState.MultiVersioned buildMulti() {
+    return this.buildMultiVersioned();
+  }
+
+  @Benchmark
+  public OptionState atMulti(final OptionStateBenchmark.Cursor cursor) {
+    final Integer version = cursor.next(this.queriedVersions);
+    return this.multiVersioned.at(version, version & (EDITIONS - 1));
+  }
+
+  @Benchmark
+  public OptionState.Versioned[] flattened() {
+    return OptionStateImpl.VersionedImpl.flattened(this.layers);
+  }
+}
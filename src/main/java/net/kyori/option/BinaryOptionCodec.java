@@ -0,0 +1,114 @@
+/*
+ * This file is part of option, licensed under the MIT License.
+ *
+ * Copyright (c) 2023 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.option;
+
+import java.nio.ByteBuffer;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A compact binary encoding of option states.
+ *
+ * <p>Options are identified by their index in a frozen {@link OptionRegistry}, so both sides must use registries with the same ids. Boolean values take one bit each, enum values are written as their ordinal, integers as zigzag variable-length integers, doubles as their 8-byte IEEE 754 form, and rollouts as their 8-byte threshold.</p>
+ *
+ * <p>Encoding writes into a caller-supplied buffer, and decoding reads straight from a buffer, applying each value to the state being built. Truncated input results in a {@link java.nio.BufferUnderflowException}, and input that does not match the registry in an {@link IllegalArgumentException}.</p>
+ *
+ * @since 1.1.0
+ */
+@ApiStatus.NonExtendable
+public interface BinaryOptionCodec {
+  /**
+   * Create a codec for the options of a frozen registry.
+   *
+   * @param registry the registry
+   * @return the codec
+   * @throws IllegalArgumentException if the registry is not frozen
+   * @since 1.1.0
+   */
+  static @NotNull BinaryOptionCodec binaryOptionCodec(final @NotNull OptionRegistry registry) {
+    return new BinaryOptionCodecImpl(registry);
+  }
+
+  /**
+   * Get the number of bytes {@link #encode(OptionState, ByteBuffer)} will write for a state.
+   *
+   * @param state the state
+   * @return the encoded size in bytes
+   * @since 1.1.0
+   */
+  int encodedSize(final @NotNull OptionState state);
+
+  /**
+   * Write the values of a state.
+   *
+   * <p>For a versioned state, only the values visible at its current version are written.</p>
+   *
+   * @param state the state
+   * @param buffer the buffer to write to
+   * @throws IllegalArgumentException if the state has values for options that are not registered, or have no binary representation
+   * @throws java.nio.BufferOverflowException if the buffer does not have enough space remaining
+   * @since 1.1.0
+   */
+  void encode(final @NotNull OptionState state, final @NotNull ByteBuffer buffer);
+
+  /**
+   * Read a state written by {@link #encode(OptionState, ByteBuffer)}.
+   *
+   * @param buffer the buffer to read from
+   * @return the decoded state
+   * @since 1.1.0
+   */
+  @NotNull OptionState decode(final @NotNull ByteBuffer buffer);
+
+  /**
+   * Get the number of bytes {@link #encodeVersioned(OptionState.Versioned, ByteBuffer)} will write for a versioned state.
+   *
+   * @param state the versioned state
+   * @return the encoded size in bytes
+   * @since 1.1.0
+   */
+  int encodedVersionedSize(final OptionState.@NotNull Versioned state);
+
+  /**
+   * Write every version layer of a versioned state.
+   *
+   * <p>Each layer is written as the changes it makes on top of the previous versions.</p>
+   *
+   * @param state the versioned state
+   * @param buffer the buffer to write to
+   * @throws IllegalArgumentException if the state has values for options that are not registered, or have no binary representation
+   * @throws java.nio.BufferOverflowException if the buffer does not have enough space remaining
+   * @since 1.1.0
+   */
+  void encodeVersioned(final OptionState.@NotNull Versioned state, final @NotNull ByteBuffer buffer);
+
+  /**
+   * Read a versioned state written by {@link #encodeVersioned(OptionState.Versioned, ByteBuffer)}.
+   *
+   * @param buffer the buffer to read from
+   * @return the decoded versioned state
+   * @since 1.1.0
+   */
+  OptionState.@NotNull Versioned decodeVersioned(final @NotNull ByteBuffer buffer);
+}
@@ -0,0 +1,342 @@
+/*
+ * This file is part of option, licensed under the MIT License.
+ *
+ * Copyright (c) 2023 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.option;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Predicate;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import static java.util.Objects.requireNonNull;
+
+// state: varint boolean count, then groups of a value byte followed by up to 8 varint indexes,
+// then varint other count, then pairs of varint index and value. values are varint enum ordinals,
+// zigzag varint ints and longs, or the 8 big-endian bytes of a double's IEEE 754 bits or a rollout's threshold.
+// versioned: varint layer count, then per layer a zigzag varint version delta and the layer state.
+final class BinaryOptionCodecImpl implements BinaryOptionCodec {
+  private static final int UNSUPPORTED = 0;
+  private static final int BOOLEAN = 1;
+  private static final int ENUM = 2;
+  private static final int INT = 3;
+  private static final int LONG = 4;
+  private static final int DOUBLE = 5;
+  private static final int ROLLOUT = 6;
+
+  private final Option<?>[] options; // by registry index
+  private final int[] kinds; // value encoding by registry index
+  private final Object @Nullable [][] constants; // enum constants by registry index
+  private final int[] indexes; // registry index by ordinal, -1 if unregistered
+
+  BinaryOptionCodecImpl(final OptionRegistry registry) {
+    if (!requireNonNull(registry, "registry").frozen()) throw new IllegalArgumentException("Binary codecs require a frozen registry, so that option indexes are stable");
+    this.options = registry.options().toArray(new Option<?>[0]);
+    this.kinds = new int[this.options.length];
+    this.constants = new Object[this.options.length][];
+    int maxOrdinal = -1;
+    for (int i = 0; i < this.options.length; i++) {
+      final Class<?> type = this.options[i].type();
+      this.kinds[i] = kind(type);
+      if (type.isEnum()) this.constants[i] = type.getEnumConstants();
+      maxOrdinal = Math.max(maxOrdinal, OptionImpl.ordinal(this.options[i]));
+    }
+    this.indexes = new int[maxOrdinal + 1];
+    Arrays.fill(this.indexes, -1);
+    for (int i = 0; i < this.options.length; i++) {
+      this.indexes[OptionImpl.ordinal(this.options[i])] = i;
+    }
+  }
+
+  private static int kind(final Class<?> type) {
+    if (type == Boolean.class) return BOOLEAN;
+    if (type.isEnum()) return ENUM;
+    if (type == Integer.class) return INT;
+    if (type == Long.class) return LONG;
+    if (type == Double.class) return DOUBLE;
+    if (type == Rollout.class) return ROLLOUT;
+    return UNSUPPORTED;
+  }
+
+  static int varIntSize(final int value) {
+    return value == 0 ? 1 : (38 - Integer.numberOfLeadingZeros(value)) / 7;
+  }
+
+  static void writeVarInt(final ByteBuffer buffer, final int value) {
+    int remaining = value;
+    while ((remaining & ~0x7f) != 0) {
+      buffer.put((byte) ((remaining & 0x7f) | 0x80));
+      remaining >>>= 7;
+    }
+    buffer.put((byte) remaining);
+  }
+
+  static int readVarInt(final ByteBuffer buffer) {
+    int value = 0;
+    for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+      final byte b = buffer.get();
+      value |= (b & 0x7f) << shift;
+      if (b >= 0) return value;
+    }
+    throw new IllegalArgumentException("Malformed variable-length integer");
+  }
+
+  static int varLongSize(final long value) {
+    return value == 0 ? 1 : (70 - Long.numberOfLeadingZeros(value)) / 7;
+  }
+
+  static void writeVarLong(final ByteBuffer buffer, final long value) {
+    long remaining = value;
+    while ((remaining & ~0x7fL) != 0) {
+      buffer.put((byte) ((remaining & 0x7f) | 0x80));
+      remaining >>>= 7;
+    }
+    buffer.put((byte) remaining);
+  }
+
+  static long readVarLong(final ByteBuffer buffer) {
+    long value = 0;
+    for (int shift = 0; shift < Long.SIZE; shift += 7) {
+      final byte b = buffer.get();
+      value |= (long) (b & 0x7f) << shift;
+      if (b >= 0) return value;
+    }
+    throw new IllegalArgumentException("Malformed variable-length integer");
+  }
+
+  int index(final Option<?> option) {
+    final int ordinal = OptionImpl.ordinal(option);
+    final int index = ordinal < this.indexes.length ? this.indexes[ordinal] : -1;
+    if (index < 0 || this.options[index] != option) throw new IllegalArgumentException("Option " + option.id() + " is not registered with this codec");
+    return index;
+  }
+
+  private Option<?> option(final int index) {
+    if (index < 0 || index >= this.options.length) throw new IllegalArgumentException("Unknown option index " + index);
+    return this.options[index];
+  }
+
+  @Override
+  public int encodedSize(final @NotNull OptionState state) {
+    final Encoder encoder = new Encoder(this, OptionStateImpl.flat(requireNonNull(state, "state")));
+    encoder.state.allOptions(encoder);
+    return encoder.size + varIntSize(encoder.booleans) + varIntSize(encoder.others);
+  }
+
+  @Override
+  public void encode(final @NotNull OptionState state, final @NotNull ByteBuffer buffer) {
+    final OptionStateImpl flat = OptionStateImpl.flat(requireNonNull(state, "state"));
+    final Encoder encoder = new Encoder(this, flat);
+    flat.allOptions(encoder); // count, and validate before writing anything
+    encoder.buffer = requireNonNull(buffer, "buffer");
+
+    encoder.phase = Encoder.BOOLEANS;
+    writeVarInt(buffer, encoder.booleans);
+    flat.allOptions(encoder);
+    encoder.phase = Encoder.OTHERS;
+    writeVarInt(buffer, encoder.others);
+    flat.allOptions(encoder);
+  }
+
+  @Override
+  public @NotNull OptionState decode(final @NotNull ByteBuffer buffer) {
+    final OptionStateImpl.BuilderImpl builder = new OptionStateImpl.BuilderImpl();
+    this.decodeInto(requireNonNull(buffer, "buffer"), builder);
+    return builder.build();
+  }
+
+  private void decodeInto(final ByteBuffer buffer, final OptionStateImpl.BuilderImpl builder) {
+    final int booleans = readVarInt(buffer);
+    for (int read = 0; read < booleans; read += Byte.SIZE) {
+      final int values = buffer.get();
+      for (int i = 0, group = Math.min(Byte.SIZE, booleans - read); i < group; i++) {
+        final Option<?> option = this.option(readVarInt(buffer));
+        if (option.type() != Boolean.class) throw new IllegalArgumentException("Option " + option.id() + " is not a boolean option");
+        builder.put(option, (values & (1 << i)) != 0 ? Boolean.TRUE : Boolean.FALSE);
+      }
+    }
+
+    final int others = readVarInt(buffer);
+    for (int read = 0; read < others; read++) {
+      final int index = readVarInt(buffer);
+      final Option<?> option = this.option(index);
+      switch (this.kinds[index]) {
+        case ENUM:
+          final Object[] constants = this.constants[index];
+          final int ordinal = readVarInt(buffer);
+          if (ordinal < 0 || ordinal >= constants.length) throw new IllegalArgumentException("Unknown constant " + ordinal + " for option " + option.id());
+          builder.put(option, constants[ordinal]);
+          break;
+        case INT:
+          final int zigZagInt = readVarInt(buffer);
+          builder.putPacked((OptionImpl<?>) option, ((zigZagInt >>> 1) ^ -(zigZagInt & 1)) & 0xffffffffL);
+          break;
+        case LONG:
+          final long zigZagLong = readVarLong(buffer);
+          builder.putPacked((OptionImpl<?>) option, (zigZagLong >>> 1) ^ -(zigZagLong & 1));
+          break;
+        case DOUBLE:
+        case ROLLOUT:
+          long bits = 0;
+          for (int i = 0; i < Long.BYTES; i++) {
+            bits = (bits << Byte.SIZE) | (buffer.get() & 0xff);
+          }
+          if (!((OptionImpl<?>) option).validPacked(bits)) throw new IllegalArgumentException("Invalid value for option " + option.id());
+          builder.putPacked((OptionImpl<?>) option, bits);
+          break;
+        default:
+          throw new IllegalArgumentException("Option " + option.id() + " is not encoded with a value");
+      }
+    }
+  }
+
+  @Override
+  public int encodedVersionedSize(final OptionState.@NotNull Versioned state) {
+    final Map<Integer, OptionState> layers = requireNonNull(state, "state").childStates();
+    int size = varIntSize(layers.size());
+    int previous = 0;
+    for (final Map.Entry<Integer, OptionState> layer : layers.entrySet()) {
+      size += varIntSize(zigZag(layer.getKey() - previous)) + this.encodedSize(layer.getValue());
+      previous = layer.getKey();
+    }
+    return size;
+  }
+
+  @Override
+  public void encodeVersioned(final OptionState.@NotNull Versioned state, final @NotNull ByteBuffer buffer) {
+    final Map<Integer, OptionState> layers = requireNonNull(state, "state").childStates();
+    writeVarInt(requireNonNull(buffer, "buffer"), layers.size());
+    int previous = 0;
+    for (final Map.Entry<Integer, OptionState> layer : layers.entrySet()) {
+      writeVarInt(buffer, zigZag(layer.getKey() - previous));
+      this.encode(layer.getValue(), buffer);
+      previous = layer.getKey();
+    }
+  }
+
+  @Override
+  public OptionState.@NotNull Versioned decodeVersioned(final @NotNull ByteBuffer buffer) {
+    final OptionState.VersionedBuilder builder = OptionState.versionedOptionState();
+    final int layers = readVarInt(requireNonNull(buffer, "buffer"));
+    int version = 0;
+    for (int i = 0; i < layers; i++) {
+      final int delta = readVarInt(buffer);
+      version += (delta >>> 1) ^ -(delta & 1);
+      builder.version(version, layer -> this.decodeInto(buffer, (OptionStateImpl.BuilderImpl) layer));
+    }
+    return builder.build();
+  }
+
+  private static int zigZag(final int value) {
+    return (value << 1) ^ (value >> 31);
+  }
+
+  private static long zigZag(final long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+
+  private static final class Encoder implements Predicate<Option<?>> {
+    static final int COUNT = 0;
+    static final int BOOLEANS = 1;
+    static final int OTHERS = 2;
+
+    private final BinaryOptionCodecImpl codec;
+    final OptionStateImpl state;
+    @Nullable ByteBuffer buffer;
+    int phase = COUNT;
+    int booleans;
+    int others;
+    int size; // of entries, excluding the counts
+    private int group; // booleans written in the current group
+    private int groupPosition;
+    private int groupValues;
+
+    Encoder(final BinaryOptionCodecImpl codec, final OptionStateImpl state) {
+      this.codec = codec;
+      this.state = state;
+    }
+
+    @Override
+    public boolean test(final Option<?> option) {
+      final int index = this.codec.index(option);
+      final int kind = this.codec.kinds[index];
+      if (this.phase == COUNT) {
+        if (kind == UNSUPPORTED) throw new IllegalArgumentException("Option " + option.id() + " has no binary representation");
+        this.size += varIntSize(index);
+        if (kind == BOOLEAN) {
+          if ((this.booleans++ & (Byte.SIZE - 1)) == 0) this.size++;
+        } else {
+          this.others++;
+          this.size += this.valueSize(option, kind);
+        }
+      } else if (this.phase == BOOLEANS && kind == BOOLEAN) {
+        final ByteBuffer buffer = this.buffer;
+        if (this.group == 0) {
+          this.groupPosition = buffer.position();
+          buffer.put((byte) 0);
+        }
+        if (this.state.packedValue((OptionImpl<?>) option) != 0) this.groupValues |= 1 << this.group;
+        writeVarInt(buffer, index);
+        buffer.put(this.groupPosition, (byte) this.groupValues);
+        if (++this.group == Byte.SIZE) {
+          this.group = 0;
+          this.groupValues = 0;
+        }
+      } else if (this.phase == OTHERS && kind != BOOLEAN) {
+        writeVarInt(this.buffer, index);
+        this.writeValue(option, kind);
+      }
+      return true;
+    }
+
+    private int valueSize(final Option<?> option, final int kind) {
+      switch (kind) {
+        case ENUM: return varIntSize(((Enum<?>) this.state.raw(option)).ordinal());
+        case INT: return varIntSize(zigZag((int) this.state.packedValue((OptionImpl<?>) option)));
+        case LONG: return varLongSize(zigZag(this.state.packedValue((OptionImpl<?>) option)));
+        default: return Long.BYTES;
+      }
+    }
+
+    private void writeValue(final Option<?> option, final int kind) {
+      final ByteBuffer buffer = this.buffer;
+      switch (kind) {
+        case ENUM:
+          writeVarInt(buffer, ((Enum<?>) this.state.raw(option)).ordinal());
+          break;
+        case INT:
+          writeVarInt(buffer, zigZag((int) this.state.packedValue((OptionImpl<?>) option)));
+          break;
+        case LONG:
+          writeVarLong(buffer, zigZag(this.state.packedValue((OptionImpl<?>) option)));
+          break;
+        default:
+          final long bits = this.state.packedValue((OptionImpl<?>) option);
+          for (int shift = Long.SIZE - Byte.SIZE; shift >= 0; shift -= Byte.SIZE) {
+            buffer.put((byte) (bits >>> shift));
+          }
+      }
+    }
+  }
+}
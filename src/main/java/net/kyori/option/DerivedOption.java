@@ -0,0 +1,91 @@
+/*
+ * This file is part of option, licensed under the MIT License.
+ *
+ * Copyright (c) 2023 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.option;
+
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A value computed from the options of a state.
+ *
+ * <p>Derived values are read with {@link OptionState#value(DerivedOption)}. They are computed on first read and cached by each immutable state, so later reads from the same state return the cached value, and building a new state computes them again. Mutable states like {@link LiveOptionState} cache them in each snapshot.</p>
+ *
+ * <p>Functions should depend only on the values of the state they are given. They may be called more than once for equal states, but are called at most once for each immutable state instance.</p>
+ *
+ * @param <V> the value type
+ * @since 1.1.0
+ */
+@ApiStatus.NonExtendable
+public interface DerivedOption<V> {
+  /**
+   * Create a value derived from a state.
+   *
+   * @param function the function computing the value, which must not return {@code null}
+   * @param <V> the value type
+   * @return the derived option
+   * @since 1.1.0
+   */
+  static <V> @NotNull DerivedOption<V> derivedOption(final @NotNull Function<? super OptionState, ? extends V> function) {
+    return new DerivedOptionImpl<>(requireNonNull(function, "function"));
+  }
+
+  /**
+   * Create a value derived from a single option.
+   *
+   * @param option the option
+   * @param function the function computing the value, which must not return {@code null}
+   * @param <A> the option value type
+   * @param <V> the value type
+   * @return the derived option
+   * @since 1.1.0
+   */
+  static <A, V> @NotNull DerivedOption<V> derivedOption(final @NotNull Option<A> option, final @NotNull Function<? super A, ? extends V> function) {
+    requireNonNull(option, "option");
+    requireNonNull(function, "function");
+    return new DerivedOptionImpl<>(state -> function.apply(state.value(option)));
+  }
+
+  /**
+   * Create a value derived from two options.
+   *
+   * @param first the first option
+   * @param second the second option
+   * @param function the function computing the value, which must not return {@code null}
+   * @param <A> the first option value type
+   * @param <B> the second option value type
+   * @param <V> the value type
+   * @return the derived option
+   * @since 1.1.0
+   */
+  static <A, B, V> @NotNull DerivedOption<V> derivedOption(final @NotNull Option<A> first, final @NotNull Option<B> second, final @NotNull BiFunction<? super A, ? super B, ? extends V> function) {
+    requireNonNull(first, "first");
+    requireNonNull(second, "second");
+    requireNonNull(function, "function");
+    return new DerivedOptionImpl<>(state -> function.apply(state.value(first), state.value(second)));
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * This file is part of option, licensed under the MIT License.
+ *
+ * Copyright (c) 2023 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.option;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Function;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import static java.util.Objects.requireNonNull;
+
+final class DerivedOptionImpl<V> implements DerivedOption<V> {
+  private static final ReferenceQueue<DerivedOptionImpl<?>> COLLECTED = new ReferenceQueue<>();
+  private static final Set<Slot> TRACKED = new HashSet<>(); // keeps the references alive until they are enqueued
+  private static final BitSet FREE_INDEXES = new BitSet();
+  private static int nextIndex; // guarded by DerivedOptionImpl.class
+
+  private final Function<? super OptionState, ? extends V> function;
+  private final Slot slot; // tags this option's values in state caches, which may outlive it once its index is reused
+
+  DerivedOptionImpl(final @NotNull Function<? super OptionState, ? extends V> function) {
+    this.function = function;
+    this.slot = register(this);
+  }
+
+  private static synchronized Slot register(final DerivedOptionImpl<?> option) {
+    reclaim();
+    final int index;
+    if (FREE_INDEXES.isEmpty()) {
+      index = nextIndex++;
+    } else {
+      index = FREE_INDEXES.nextSetBit(0); // lowest first, keeping caches short
+      FREE_INDEXES.clear(index);
+    }
+    final Slot slot = new Slot(option, index);
+    TRACKED.add(slot);
+    return slot;
+  }
+
+  // frees the indexes of collected options for reuse by new options
+  private static void reclaim() {
+    Slot slot;
+    while ((slot = (Slot) COLLECTED.poll()) != null) {
+      TRACKED.remove(slot);
+      FREE_INDEXES.set(slot.index);
+    }
+  }
+
+  // one more than the highest index in use or since reclaimed
+  static synchronized int limit() {
+    return nextIndex;
+  }
+
+  int index() {
+    return this.slot.index;
+  }
+
+  // the value of this option held by a cache entry, or null if the entry is empty or belongs to a collected option
+  @SuppressWarnings("unchecked")
+  @Nullable V cached(final @Nullable Cached entry) {
+    return entry != null && entry.slot == this.slot ? (V) entry.value : null;
+  }
+
+  @NotNull V compute(final @NotNull OptionState state) {
+    return requireNonNull(this.function.apply(state), "derived value");
+  }
+
+  // computes the value in a state, as an entry for its cache
+  @NotNull Cached computeEntry(final @NotNull OptionState state) {
+    return new Cached(this.slot, this.compute(state));
+  }
+
+  @Override
+  public String toString() {
+    return this.getClass().getSimpleName() + "{" +
+      "index=" + this.slot.index +
+      '}';
+  }
+
+  // a derived value in a state cache
+  static final class Cached {
+    private final Slot slot;
+    final Object value;
+
+    Cached(final Slot slot, final Object value) {
+      this.slot = slot;
+      this.value = value;
+    }
+  }
+
+  // the cache index of an option, tracked until the option is collected
+  private static final class Slot extends WeakReference<DerivedOptionImpl<?>> {
+    private final int index;
+
+    Slot(final DerivedOptionImpl<?> option, final int index) {
+      super(option, COLLECTED);
+      this.index = index;
+    }
+  }
+}
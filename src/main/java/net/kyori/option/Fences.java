@@ -0,0 +1,72 @@
+/*
+ * This file is part of option, licensed under the MIT License.
+ *
+ * Copyright (c) 2023 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.option;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+
+// memory fences for data shared outside of the JVM's view, like memory-mapped files.
+// Java 8 has no public fence API, so this binds the fences of sun.misc.Unsafe, which cannot be linked against when
+// compiling for release 8; constant handles are inlined to the fence intrinsics. Java 9+ uses VarHandle fences.
+final class Fences {
+  private static final MethodHandle LOAD_FENCE;
+  private static final MethodHandle STORE_FENCE;
+
+  static {
+    try {
+      final Class<?> type = Class.forName("sun.misc.Unsafe");
+      final Field field = type.getDeclaredField("theUnsafe");
+      field.setAccessible(true);
+      final Object unsafe = field.get(null);
+      final MethodHandles.Lookup lookup = MethodHandles.lookup();
+      LOAD_FENCE = lookup.findVirtual(type, "loadFence", MethodType.methodType(void.class)).bindTo(unsafe);
+      STORE_FENCE = lookup.findVirtual(type, "storeFence", MethodType.methodType(void.class)).bindTo(unsafe);
+    } catch (final ReflectiveOperationException ex) {
+      throw new ExceptionInInitializerError(ex);
+    }
+  }
+
+  private Fences() {
+  }
+
+  // loads before the fence are ordered before loads and stores after it
+  static void acquire() {
+    try {
+      LOAD_FENCE.invokeExact();
+    } catch (final Throwable ex) {
+      throw new AssertionError(ex); // fences do not throw
+    }
+  }
+
+  // loads and stores before the fence are ordered before stores after it
+  static void release() {
+    try {
+      STORE_FENCE.invokeExact();
+    } catch (final Throwable ex) {
+      throw new AssertionError(ex); // fences do not throw
+    }
+  }
+}
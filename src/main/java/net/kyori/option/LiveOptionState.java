@@ -0,0 +1,125 @@
+/*
+ * This file is part of option, licensed under the MIT License.
+ *
+ * Copyright (c) 2023 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.option;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A mutable option state, holding an immutable snapshot that can be replaced at runtime.
+ *
+ * <p>Reads query the current snapshot. To read several options consistently, query a single {@link #snapshot()}.</p>
+ *
+ * @since 1.1.0
+ */
+@ApiStatus.NonExtendable
+public interface LiveOptionState extends OptionState {
+  /**
+   * Get the current snapshot of this state.
+   *
+   * @return the current snapshot
+   * @since 1.1.0
+   */
+  @NotNull OptionState snapshot();
+
+  /**
+   * Replace the current snapshot.
+   *
+   * @param state the new snapshot
+   * @return the previous snapshot
+   * @since 1.1.0
+   */
+  @NotNull OptionState set(final @NotNull OptionState state);
+
+  /**
+   * Apply changes on top of the current snapshot.
+   *
+   * <p>The builder starts with every value of the current snapshot. If another update completes first, the changes are applied again to its result, so {@code changes} may be called more than once.</p>
+   *
+   * @param changes the changes to apply
+   * @return the new snapshot
+   * @since 1.1.0
+   */
+  @NotNull OptionState update(final @NotNull Consumer<Builder> changes);
+
+  /**
+   * Get a method handle returning the value of an option in the current snapshot.
+   *
+   * <p>The handle takes no arguments and returns the value of the option, unboxed for boolean, integer, long and double options. It is backed by a call site the JIT treats as a constant: held in a {@code static final} field and called with {@code invokeExact}, the value is folded into compiled code and branches on it are removed. When {@link #set(OptionState)} or {@link #update(Consumer)} changes the value, the handle is relinked before they return, discarding code compiled against the previous value.</p>
+   *
+   * <p>Relinking is far more expensive than a read, so this suits options that are checked on hot paths and rarely change.</p>
+   *
+   * @param option the option
+   * @return a handle returning the current value of the option, the same for every call
+   * @since 1.1.0
+   */
+  @NotNull MethodHandle constant(final @NotNull Option<?> option);
+
+  /**
+   * Register a listener to be notified of changed options.
+   *
+   * @param listener the listener
+   * @since 1.1.0
+   */
+  void addListener(final @NotNull Listener listener);
+
+  /**
+   * Remove a previously registered listener.
+   *
+   * @param listener the listener
+   * @since 1.1.0
+   */
+  void removeListener(final @NotNull Listener listener);
+
+  /**
+   * Get the canonical instance of the current snapshot.
+   *
+   * @return the interned snapshot
+   * @since 1.1.0
+   */
+  @Override
+  @NotNull OptionState interned();
+
+  /**
+   * A receiver of changes to a live state.
+   *
+   * <p>Changes are delivered in batches: options changed by updates that happen while listeners are still being notified are collected into the next batch.</p>
+   *
+   * @since 1.1.0
+   */
+  @FunctionalInterface
+  interface Listener {
+    /**
+     * Called after options in the state changed.
+     *
+     * @param state the live state, whose current snapshot includes the changes
+     * @param changed every option set, unset or given a different value since the previous batch
+     * @since 1.1.0
+     */
+    void changed(final @NotNull LiveOptionState state, final @NotNull Set<Option<?>> changed);
+  }
+}
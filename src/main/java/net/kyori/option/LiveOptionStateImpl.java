@@ -0,0 +1,273 @@
+/*
+ * This file is part of option, licensed under the MIT License.
+ *
+ * Copyright (c) 2023 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.option;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.MutableCallSite;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Consumer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import static java.util.Objects.requireNonNull;
+
+final class LiveOptionStateImpl implements LiveOptionState {
+  private static final AtomicReferenceFieldUpdater<LiveOptionStateImpl, OptionState> CURRENT = AtomicReferenceFieldUpdater.newUpdater(LiveOptionStateImpl.class, OptionState.class, "current");
+
+  private volatile OptionState current;
+  private final Executor notifier;
+  private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+  private final Object lock = new Object();
+  private Set<Option<?>> pending = newOptionSet(); // guarded by lock
+  private boolean notifying; // guarded by lock
+  private final Map<Option<?>, Constant> constants = new IdentityHashMap<>(); // guarded by lock
+
+  LiveOptionStateImpl(final @NotNull OptionState initial, final @NotNull Executor notifier) {
+    this.current = requireNonNull(initial, "initial");
+    this.notifier = requireNonNull(notifier, "notifier");
+  }
+
+  private static Set<Option<?>> newOptionSet() {
+    return Collections.newSetFromMap(new IdentityHashMap<>());
+  }
+
+  @Override
+  public boolean has(final @NotNull Option<?> option) {
+    return this.current.has(option);
+  }
+
+  @Override
+  public <V> V value(final @NotNull Option<V> option) {
+    return this.current.value(option);
+  }
+
+  @Override
+  public boolean enabledFor(final @NotNull Option<Rollout> option, final long subjectId) {
+    return this.current.enabledFor(option, subjectId);
+  }
+
+  @Override
+  public <V> @NotNull V value(final @NotNull DerivedOption<V> option) {
+    return this.current.value(option);
+  }
+
+  @Override
+  public boolean booleanValue(final @NotNull Option<Boolean> option) {
+    return this.current.booleanValue(option);
+  }
+
+  @Override
+  public int intValue(final @NotNull Option<Integer> option) {
+    return this.current.intValue(option);
+  }
+
+  @Override
+  public long longValue(final @NotNull Option<Long> option) {
+    return this.current.longValue(option);
+  }
+
+  @Override
+  public double doubleValue(final @NotNull Option<Double> option) {
+    return this.current.doubleValue(option);
+  }
+
+  @Override
+  public @NotNull OptionState snapshot() {
+    return this.current;
+  }
+
+  @Override
+  public @NotNull OptionState interned() {
+    return this.current.interned();
+  }
+
+  @Override
+  public @NotNull OptionState set(final @NotNull OptionState state) {
+    requireNonNull(state, "state");
+    if (state == this) throw new IllegalArgumentException("A live state cannot contain itself");
+    final OptionState previous = CURRENT.getAndSet(this, state);
+    this.relink();
+    this.changed(previous, state);
+    return previous;
+  }
+
+  @Override
+  public @NotNull OptionState update(final @NotNull Consumer<Builder> changes) {
+    requireNonNull(changes, "changes");
+    OptionState previous;
+    OptionState next;
+    do {
+      previous = this.current;
+      final Builder builder = OptionState.optionState().values(previous);
+      changes.accept(builder);
+      next = builder.build();
+    } while (!CURRENT.compareAndSet(this, previous, next));
+    this.relink();
+    this.changed(previous, next);
+    return next;
+  }
+
+  @Override
+  public @NotNull MethodHandle constant(final @NotNull Option<?> option) {
+    requireNonNull(option, "flag");
+    synchronized (this.lock) {
+      Constant constant = this.constants.get(option);
+      if (constant == null) {
+        constant = new Constant(option, this.current.value(option));
+        this.constants.put(option, constant);
+      }
+      return constant.invoker;
+    }
+  }
+
+  // points constants whose value changed at the current snapshot, reading it under the lock so the last relink always sees the last snapshot
+  private void relink() {
+    synchronized (this.lock) {
+      if (this.constants.isEmpty()) return;
+      final OptionState state = this.current;
+      final List<MutableCallSite> relinked = new ArrayList<>();
+      for (final Constant constant : this.constants.values()) {
+        if (constant.bind(state)) relinked.add(constant.site);
+      }
+      if (!relinked.isEmpty()) MutableCallSite.syncAll(relinked.toArray(new MutableCallSite[0]));
+    }
+  }
+
+  @Override
+  public void addListener(final @NotNull Listener listener) {
+    this.listeners.add(requireNonNull(listener, "listener"));
+  }
+
+  @Override
+  public void removeListener(final @NotNull Listener listener) {
+    this.listeners.remove(requireNonNull(listener, "listener"));
+  }
+
+  private void changed(final OptionState previous, final OptionState next) {
+    if (this.listeners.isEmpty()) return;
+
+    final OptionStateDiffImpl diff = OptionStateImpl.flat(previous).diff(OptionStateImpl.flat(next));
+    if (diff.isEmpty()) return;
+
+    synchronized (this.lock) {
+      for (final OptionState.Diff.Change<?> change : diff) {
+        this.pending.add(change.option());
+      }
+      if (this.notifying) return; // picked up by the running notification loop
+      this.notifying = true;
+    }
+    try {
+      this.notifier.execute(this::notifyListeners);
+    } catch (final RuntimeException ex) {
+      synchronized (this.lock) {
+        this.notifying = false;
+      }
+      throw ex;
+    }
+  }
+
+  private void notifyListeners() {
+    while (true) {
+      final Set<Option<?>> batch;
+      synchronized (this.lock) {
+        if (this.pending.isEmpty()) {
+          this.notifying = false;
+          return;
+        }
+        batch = Collections.unmodifiableSet(this.pending);
+        this.pending = newOptionSet();
+      }
+
+      RuntimeException failure = null;
+      for (final Listener listener : this.listeners) {
+        try {
+          listener.changed(this, batch);
+        } catch (final RuntimeException ex) {
+          if (failure == null) {
+            failure = ex;
+          } else {
+            failure.addSuppressed(ex);
+          }
+        }
+      }
+      if (failure != null) {
+        synchronized (this.lock) {
+          this.notifying = false;
+        }
+        throw failure;
+      }
+    }
+  }
+
+  @Override
+  public boolean equals(final @Nullable Object other) {
+    return this == other;
+  }
+
+  @Override
+  public int hashCode() {
+    return System.identityHashCode(this);
+  }
+
+  @Override
+  public String toString() {
+    return this.getClass().getSimpleName() + "{" +
+      "current=" + this.current +
+      '}';
+  }
+
+  private static final class Constant {
+    final Option<?> option;
+    final MutableCallSite site;
+    final MethodHandle invoker;
+    private Object value; // guarded by the state's lock
+
+    Constant(final Option<?> option, final Object value) {
+      this.option = option;
+      this.value = value;
+      this.site = new MutableCallSite(MethodHandles.constant(MethodType.methodType(option.type()).unwrap().returnType(), value));
+      this.invoker = this.site.dynamicInvoker();
+    }
+
+    // retargets the call site if the value changed, returning whether it did
+    boolean bind(final OptionState state) {
+      final Object value = state.value(this.option);
+      if (Objects.equals(value, this.value)) return false;
+      this.value = value;
+      this.site.setTarget(MethodHandles.constant(this.site.type().returnType(), value));
+      return true;
+    }
+  }
+}
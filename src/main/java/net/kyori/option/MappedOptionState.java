@@ -0,0 +1,125 @@
+/*
+ * This file is part of option, licensed under the MIT License.
+ *
+ * Copyright (c) 2023 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.option;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * An option state read from a memory-mapped file, shared between processes on the same host.
+ *
+ * <p>One process {@link #writer(Path, OptionRegistry) writes} the file, and any number of processes {@link #open(Path, OptionRegistry) read} it. Options are stored by their index in a frozen {@link OptionRegistry}, so writers and readers must use registries with the same options. Boolean, enum, numeric and rollout option values are supported.</p>
+ *
+ * <p>Each read sees a value from a single published generation, without locking or allocating. To read several options consistently, query a single {@link #snapshot()}.</p>
+ *
+ * <p>Reads wait for a write in progress only briefly. If a writer process stops mid-write, every option reads as unset until another writer takes over the file.</p>
+ *
+ * @since 1.1.0
+ */
+@ApiStatus.NonExtendable
+public interface MappedOptionState extends OptionState {
+  /**
+   * Map a file written by a {@link Writer}, for reading.
+   *
+   * @param file the file
+   * @param registry the frozen registry the file was written with
+   * @return the mapped state
+   * @throws IOException if the file cannot be mapped, or was written for different options
+   * @since 1.1.0
+   */
+  static @NotNull MappedOptionState open(final @NotNull Path file, final @NotNull OptionRegistry registry) throws IOException {
+    return MappedOptionStateImpl.open(file, registry);
+  }
+
+  /**
+   * Create or take over a file to publish states to.
+   *
+   * <p>The writer holds an exclusive lock on the file until closed.</p>
+   *
+   * @param file the file
+   * @param registry the frozen registry to index options with
+   * @return the writer
+   * @throws IOException if the file cannot be mapped, is locked by another writer, or was written for different options
+   * @since 1.1.0
+   */
+  static @NotNull Writer writer(final @NotNull Path file, final @NotNull OptionRegistry registry) throws IOException {
+    return MappedOptionStateImpl.writer(file, registry);
+  }
+
+  /**
+   * Get the number of states published to the file.
+   *
+   * <p>While a write is in progress, this is the generation before it.</p>
+   *
+   * @return the current generation
+   * @since 1.1.0
+   */
+  long generation();
+
+  /**
+   * Copy every value of the current generation into an immutable state.
+   *
+   * @return the snapshot
+   * @since 1.1.0
+   */
+  @NotNull OptionState snapshot();
+
+  /**
+   * Get the canonical instance of the current snapshot.
+   *
+   * @return the interned snapshot
+   * @since 1.1.0
+   */
+  @Override
+  @NotNull OptionState interned();
+
+  /**
+   * The publishing side of a mapped state.
+   *
+   * @since 1.1.0
+   */
+  @ApiStatus.NonExtendable
+  interface Writer extends Closeable {
+    /**
+     * Replace every value in the file with the values of a state.
+     *
+     * @param state the state to publish
+     * @return the new generation
+     * @throws IllegalArgumentException if the state has values for options that are not registered, or that are not boolean, enum, numeric or rollout options
+     * @since 1.1.0
+     */
+    long publish(final @NotNull OptionState state);
+
+    /**
+     * Get a state reading this writer's file.
+     *
+     * @return the mapped state
+     * @since 1.1.0
+     */
+    @NotNull MappedOptionState state();
+  }
+}
@@ -0,0 +1,386 @@
+/*
+ * This file is part of option, licensed under the MIT License.
+ *
+ * Copyright (c) 2023 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.option;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import static java.util.Objects.requireNonNull;
+
+// layout, in native byte order:
+// header: int magic, int format, long registry fingerprint, int option count, int padding, long sequence (odd while a write is in progress)
+// then a presence bitmap of one bit per registry index, then one 8-byte value slot per registry index.
+// slots hold the packed form of values (see OptionImpl.pack), or the ordinal of enum constants that are not packed.
+final class MappedOptionStateImpl implements MappedOptionState {
+  private static final int MAGIC = 0x4b4f5054; // KOPT
+  private static final int FORMAT = 1;
+  private static final int MAGIC_OFFSET = 0;
+  private static final int FORMAT_OFFSET = 4;
+  private static final int FINGERPRINT_OFFSET = 8;
+  private static final int COUNT_OFFSET = 16;
+  private static final int SEQUENCE_OFFSET = 24;
+  private static final int HEADER_SIZE = 64;
+  private static final int MAX_READ_ATTEMPTS = 1 << 12; // before a write in progress is taken to be abandoned by a writer that stopped
+
+  private final MappedByteBuffer buffer;
+  private final Option<?>[] options; // by registry index
+  private final Object @Nullable [][] constants; // enum constants by registry index, for enums too large to pack
+  private final int[] indexes; // registry index by ordinal, -1 if unregistered
+  private final int slotsOffset;
+
+  private MappedOptionStateImpl(final MappedByteBuffer buffer, final Option<?>[] options) {
+    this.buffer = buffer;
+    this.options = options;
+    this.constants = new Object[options.length][];
+    int maxOrdinal = -1;
+    for (int i = 0; i < options.length; i++) {
+      final OptionImpl<?> option = (OptionImpl<?>) options[i];
+      if (!option.packed() && option.type().isEnum()) {
+        this.constants[i] = option.type().getEnumConstants();
+      }
+      maxOrdinal = Math.max(maxOrdinal, OptionImpl.ordinal(options[i]));
+    }
+    this.indexes = new int[maxOrdinal + 1];
+    Arrays.fill(this.indexes, -1);
+    for (int i = 0; i < options.length; i++) {
+      this.indexes[OptionImpl.ordinal(options[i])] = i;
+    }
+    this.slotsOffset = HEADER_SIZE + bitmapWords(options.length) * Long.BYTES;
+  }
+
+  private static int bitmapWords(final int options) {
+    return (options + Long.SIZE - 1) >>> 6;
+  }
+
+  private static long fingerprint(final Option<?>[] options) {
+    long fingerprint = options.length;
+    for (final Option<?> option : options) {
+      fingerprint = OptionRegistryImpl.mix(fingerprint * 31 + OptionRegistryImpl.hash(option.id()));
+      fingerprint = OptionRegistryImpl.mix(fingerprint * 31 + OptionRegistryImpl.hash(option.type().getName()));
+    }
+    return fingerprint;
+  }
+
+  private static Option<?>[] options(final OptionRegistry registry) {
+    if (!requireNonNull(registry, "registry").frozen()) throw new IllegalArgumentException("Mapped states require a frozen registry, so that option indexes are stable");
+    return registry.options().toArray(new Option<?>[0]);
+  }
+
+  static MappedOptionStateImpl open(final Path file, final OptionRegistry registry) throws IOException {
+    final Option<?>[] options = options(registry);
+    try (final FileChannel channel = FileChannel.open(requireNonNull(file, "file"), StandardOpenOption.READ)) {
+      final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      buffer.order(ByteOrder.nativeOrder());
+      verify(file, buffer, options);
+      return new MappedOptionStateImpl(buffer, options);
+    }
+  }
+
+  static WriterImpl writer(final Path file, final OptionRegistry registry) throws IOException {
+    final Option<?>[] options = options(registry);
+    final FileChannel channel = FileChannel.open(requireNonNull(file, "file"), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      FileLock lock;
+      try {
+        lock = channel.tryLock();
+      } catch (final OverlappingFileLockException ex) {
+        lock = null; // held by another writer in this process
+      }
+      if (lock == null) throw new IOException("Mapped option file " + file + " is locked by another writer");
+
+      final long size = HEADER_SIZE + (long) (bitmapWords(options.length) + options.length) * Long.BYTES;
+      final boolean created = channel.size() == 0;
+      final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+      buffer.order(ByteOrder.nativeOrder());
+      if (created) {
+        buffer.putLong(SEQUENCE_OFFSET, 0);
+        buffer.putInt(COUNT_OFFSET, options.length);
+        buffer.putLong(FINGERPRINT_OFFSET, fingerprint(options));
+        buffer.putInt(FORMAT_OFFSET, FORMAT);
+        Fences.release();
+        buffer.putInt(MAGIC_OFFSET, MAGIC);
+      } else {
+        verify(file, buffer, options);
+        final long sequence = buffer.getLong(SEQUENCE_OFFSET);
+        if ((sequence & 1) != 0) { // a previous writer stopped mid-write, so publish an empty state for readers to make progress
+          for (int i = 0; i < bitmapWords(options.length); i++) {
+            buffer.putLong(HEADER_SIZE + i * Long.BYTES, 0);
+          }
+          Fences.release();
+          buffer.putLong(SEQUENCE_OFFSET, sequence + 1);
+        }
+      }
+      return new WriterImpl(channel, lock, new MappedOptionStateImpl(buffer, options));
+    } catch (final IOException | RuntimeException ex) {
+      channel.close();
+      throw ex;
+    }
+  }
+
+  private static void verify(final Path file, final MappedByteBuffer buffer, final Option<?>[] options) throws IOException {
+    if (buffer.capacity() < HEADER_SIZE || buffer.getInt(MAGIC_OFFSET) != MAGIC) {
+      throw new IOException("File " + file + " is not a mapped option file");
+    }
+    if (buffer.getInt(FORMAT_OFFSET) != FORMAT) {
+      throw new IOException("Mapped option file " + file + " uses unsupported format " + buffer.getInt(FORMAT_OFFSET));
+    }
+    if (buffer.getInt(COUNT_OFFSET) != options.length || buffer.getLong(FINGERPRINT_OFFSET) != fingerprint(options)) {
+      throw new IOException("Mapped option file " + file + " was written for a different set of options");
+    }
+    if (buffer.capacity() < HEADER_SIZE + (long) (bitmapWords(options.length) + options.length) * Long.BYTES) {
+      throw new IOException("Mapped option file " + file + " is truncated");
+    }
+  }
+
+  private int index(final Option<?> option) {
+    final int ordinal = OptionImpl.ordinal(requireNonNull(option, "flag"));
+    final int index = ordinal < this.indexes.length ? this.indexes[ordinal] : -1;
+    return index >= 0 && this.options[index] == option ? index : -1;
+  }
+
+  // the slot value of a packed option, or of its default if unset
+  private long read(final int index) {
+    final MappedByteBuffer buffer = this.buffer;
+    final int presentOffset = HEADER_SIZE + (index >>> 6) * Long.BYTES;
+    final int slotOffset = this.slotsOffset + index * Long.BYTES;
+    for (int attempt = 0; ; attempt++) {
+      final long sequence = buffer.getLong(SEQUENCE_OFFSET);
+      Fences.acquire();
+      final long present = buffer.getLong(presentOffset);
+      final long value = buffer.getLong(slotOffset);
+      Fences.acquire();
+      if ((sequence & 1) == 0 && sequence == buffer.getLong(SEQUENCE_OFFSET)) {
+        return (present & (1L << index)) == 0 ? ((OptionImpl<?>) this.options[index]).packedDefault() : value;
+      }
+      if (!retry(attempt)) return ((OptionImpl<?>) this.options[index]).packedDefault(); // a stalled write reads as unset
+    }
+  }
+
+  // the value of an option, or its default if unset, which unlike a slot may be null
+  private @Nullable Object readValue(final int index) {
+    final MappedByteBuffer buffer = this.buffer;
+    final int presentOffset = HEADER_SIZE + (index >>> 6) * Long.BYTES;
+    final int slotOffset = this.slotsOffset + index * Long.BYTES;
+    for (int attempt = 0; ; attempt++) {
+      final long sequence = buffer.getLong(SEQUENCE_OFFSET);
+      Fences.acquire();
+      final long present = buffer.getLong(presentOffset);
+      final long value = buffer.getLong(slotOffset);
+      Fences.acquire();
+      if ((sequence & 1) == 0 && sequence == buffer.getLong(SEQUENCE_OFFSET)) {
+        return (present & (1L << index)) == 0 ? this.options[index].defaultValue() : this.decode(index, value);
+      }
+      if (!retry(attempt)) return this.options[index].defaultValue(); // a stalled write reads as unset
+    }
+  }
+
+  // waits for a write in progress, unless it has taken so long that its writer likely stopped mid-write
+  private static boolean retry(final int attempt) {
+    if (attempt >= MAX_READ_ATTEMPTS) return false;
+    Thread.yield();
+    return true;
+  }
+
+  @Override
+  public boolean has(final @NotNull Option<?> option) {
+    final int index = this.index(option);
+    return index >= 0 && (this.buffer.getLong(HEADER_SIZE + (index >>> 6) * Long.BYTES) & (1L << index)) != 0; // a single aligned read is never torn
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <V> V value(final @NotNull Option<V> option) {
+    final int index = this.index(option);
+    if (OptionMetricsImpl.ENABLED) OptionImpl.recordRead(option, this.has(option));
+    return index < 0 ? option.defaultValue() : (V) this.readValue(index);
+  }
+
+  @Override
+  public boolean booleanValue(final @NotNull Option<Boolean> option) {
+    return this.readPacked(option) != 0;
+  }
+
+  @Override
+  public int intValue(final @NotNull Option<Integer> option) {
+    return (int) this.readPacked(option);
+  }
+
+  @Override
+  public long longValue(final @NotNull Option<Long> option) {
+    return this.readPacked(option);
+  }
+
+  @Override
+  public double doubleValue(final @NotNull Option<Double> option) {
+    return Double.longBitsToDouble(this.readPacked(option));
+  }
+
+  @Override
+  public boolean enabledFor(final @NotNull Option<Rollout> option, final long subjectId) {
+    return ((OptionImpl<?>) option).enabledFor(this.readPacked(option), subjectId);
+  }
+
+  private long readPacked(final Option<?> option) {
+    final int index = this.index(option);
+    if (OptionMetricsImpl.ENABLED) OptionImpl.recordRead(option, this.has(option));
+    return index < 0 ? ((OptionImpl<?>) option).packedDefault() : this.read(index);
+  }
+
+  private Object decode(final int index, final long value) {
+    final OptionImpl<?> option = (OptionImpl<?>) this.options[index];
+    if (option.packed()) return option.unpack(this.checked(index, value));
+
+    final Object[] constants = this.constants[index];
+    if (constants == null || value < 0 || value >= constants.length) throw new IllegalStateException("Mapped value " + value + " is not valid for option " + option.id());
+    return constants[(int) value];
+  }
+
+  private long checked(final int index, final long packed) {
+    final OptionImpl<?> option = (OptionImpl<?>) this.options[index];
+    if (!option.validPacked(packed)) throw new IllegalStateException("Mapped value " + packed + " is not valid for option " + option.id());
+    return packed;
+  }
+
+  @Override
+  public long generation() {
+    return this.buffer.getLong(SEQUENCE_OFFSET) >>> 1; // while a write is in progress, the last completed one
+  }
+
+  @Override
+  public @NotNull OptionState snapshot() {
+    final MappedByteBuffer buffer = this.buffer;
+    final long[] present = new long[bitmapWords(this.options.length)];
+    final long[] values = new long[this.options.length];
+    for (int attempt = 0; ; attempt++) {
+      final long sequence = buffer.getLong(SEQUENCE_OFFSET);
+      Fences.acquire();
+      for (int i = 0; i < present.length; i++) {
+        present[i] = buffer.getLong(HEADER_SIZE + i * Long.BYTES);
+      }
+      for (int i = 0; i < values.length; i++) {
+        values[i] = buffer.getLong(this.slotsOffset + i * Long.BYTES);
+      }
+      Fences.acquire();
+      if ((sequence & 1) == 0 && sequence == buffer.getLong(SEQUENCE_OFFSET)) break;
+      if (!retry(attempt)) return OptionStateImpl.EMPTY; // a stalled write reads as unset
+    }
+
+    final OptionStateImpl.BuilderImpl builder = new OptionStateImpl.BuilderImpl();
+    for (int i = 0; i < values.length; i++) {
+      if ((present[i >>> 6] & (1L << i)) == 0) continue;
+      final OptionImpl<?> option = (OptionImpl<?>) this.options[i];
+      if (option.packed()) {
+        builder.putPacked(option, this.checked(i, values[i]));
+      } else {
+        builder.put(option, this.decode(i, values[i]));
+      }
+    }
+    return builder.build();
+  }
+
+  @Override
+  public @NotNull OptionState interned() {
+    return this.snapshot().interned();
+  }
+
+  @Override
+  public String toString() {
+    return this.getClass().getSimpleName() + "{" +
+      "generation=" + this.generation() +
+      ", snapshot=" + this.snapshot() +
+      '}';
+  }
+
+  static final class WriterImpl implements Writer {
+    private final FileChannel channel;
+    private final FileLock lock;
+    private final MappedOptionStateImpl state;
+
+    WriterImpl(final FileChannel channel, final FileLock lock, final MappedOptionStateImpl state) {
+      this.channel = channel;
+      this.lock = lock;
+      this.state = state;
+    }
+
+    @Override
+    public synchronized long publish(final @NotNull OptionState state) {
+      if (!this.channel.isOpen()) throw new IllegalStateException("Writer has been closed");
+      final MappedOptionStateImpl mapped = this.state;
+      final long[] present = new long[bitmapWords(mapped.options.length)];
+      final long[] values = new long[mapped.options.length];
+      final OptionStateImpl flat = OptionStateImpl.flat(requireNonNull(state, "state"));
+      flat.allOptions(option -> {
+        final int index = mapped.index(option);
+        if (index < 0) throw new IllegalArgumentException("Option " + option.id() + " is not registered with this mapped state");
+        final OptionImpl<?> impl = (OptionImpl<?>) option;
+        if (impl.packed()) {
+          values[index] = flat.packedValue(impl);
+        } else if (mapped.constants[index] != null) {
+          values[index] = ((Enum<?>) flat.raw(option)).ordinal();
+        } else {
+          throw new IllegalArgumentException("Option " + option.id() + " has no mapped representation");
+        }
+        present[index >>> 6] |= 1L << index;
+        return true;
+      });
+
+      final MappedByteBuffer buffer = mapped.buffer;
+      final long sequence = buffer.getLong(SEQUENCE_OFFSET) + 1;
+      buffer.putLong(SEQUENCE_OFFSET, sequence);
+      Fences.release();
+      for (int i = 0; i < present.length; i++) {
+        buffer.putLong(HEADER_SIZE + i * Long.BYTES, present[i]);
+      }
+      for (int i = 0; i < values.length; i++) {
+        buffer.putLong(mapped.slotsOffset + i * Long.BYTES, values[i]);
+      }
+      Fences.release();
+      buffer.putLong(SEQUENCE_OFFSET, sequence + 1);
+      return (sequence + 1) >>> 1;
+    }
+
+    @Override
+    public @NotNull MappedOptionState state() {
+      return this.state;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+      try {
+        this.lock.release();
+      } finally {
+        this.channel.close();
+      }
+    }
+  }
+}
@@ -0,0 +1,180 @@
+/*
+ * This file is part of option, licensed under the MIT License.
+ *
+ * Copyright (c) 2023 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.option;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import org.jetbrains.annotations.NotNull;
+
+import static java.util.Objects.requireNonNull;
+
+// cells hold the state of every combination of breakpoint positions, in row-major order with the first dimension most significant.
+// position 0 in a dimension lies below its first breakpoint, and position i at or above breakpoint i - 1.
+final class MultiVersionedImpl implements OptionState.MultiVersioned {
+  private final int[][] breakpoints; // declared coordinates of each dimension, ascending
+  private final int[] strides;
+  private final OptionStateImpl[] cells;
+
+  private MultiVersionedImpl(final int[][] breakpoints, final int[] strides, final OptionStateImpl[] cells) {
+    this.breakpoints = breakpoints;
+    this.strides = strides;
+    this.cells = cells;
+  }
+
+  // the number of breakpoints at or below a coordinate
+  private static int position(final int[] breakpoints, final int coordinate) {
+    int low = 0;
+    int high = breakpoints.length;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (breakpoints[mid] <= coordinate) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  @Override
+  public int dimensions() {
+    return this.breakpoints.length;
+  }
+
+  @Override
+  public @NotNull OptionState at(final int first, final int second) {
+    if (this.breakpoints.length != 2) throw new IllegalArgumentException("Expected " + this.breakpoints.length + " coordinates, got 2");
+    return this.cells[position(this.breakpoints[0], first) * this.strides[0] + position(this.breakpoints[1], second)];
+  }
+
+  @Override
+  public @NotNull OptionState at(final int @NotNull... coordinates) {
+    if (requireNonNull(coordinates, "coordinates").length != this.breakpoints.length) throw new IllegalArgumentException("Expected " + this.breakpoints.length + " coordinates, got " + coordinates.length);
+    int index = 0;
+    for (int i = 0; i < coordinates.length; i++) {
+      index += position(this.breakpoints[i], coordinates[i]) * this.strides[i];
+    }
+    return this.cells[index];
+  }
+
+  @Override
+  public String toString() {
+    return this.getClass().getSimpleName() + "{" +
+      "breakpoints=" + Arrays.deepToString(this.breakpoints) + "," +
+      "cells=" + this.cells.length +
+      '}';
+  }
+
+  static final class BuilderImpl implements OptionState.MultiVersionedBuilder {
+    private final int dimensions;
+    private final Map<int[], OptionStateImpl.BuilderImpl> builders = new TreeMap<>(BuilderImpl::compare); // in order of application
+
+    BuilderImpl(final int dimensions) {
+      if (dimensions < 1) throw new IllegalArgumentException("At least one dimension is required, got " + dimensions);
+      this.dimensions = dimensions;
+    }
+
+    private static int compare(final int[] first, final int[] second) {
+      for (int i = 0; i < first.length; i++) {
+        final int result = Integer.compare(first[i], second[i]);
+        if (result != 0) return result;
+      }
+      return 0;
+    }
+
+    @Override
+    public OptionState.@NotNull MultiVersionedBuilder version(final int @NotNull [] coordinates, final @NotNull Consumer<OptionState.Builder> versionBuilder) {
+      if (requireNonNull(coordinates, "coordinates").length != this.dimensions) throw new IllegalArgumentException("Expected " + this.dimensions + " coordinates, got " + coordinates.length);
+      requireNonNull(versionBuilder, "versionBuilder")
+        .accept(this.builders.computeIfAbsent(coordinates.clone(), $ -> new OptionStateImpl.BuilderImpl()));
+      return this;
+    }
+
+    @Override
+    public OptionState.@NotNull MultiVersioned build() {
+      final int[][] breakpoints = new int[this.dimensions][];
+      for (int d = 0; d < this.dimensions; d++) {
+        final TreeSet<Integer> declared = new TreeSet<>();
+        for (final int[] coordinates : this.builders.keySet()) {
+          declared.add(coordinates[d]);
+        }
+        breakpoints[d] = declared.stream().mapToInt(Integer::intValue).toArray();
+      }
+
+      final int[] strides = new int[this.dimensions];
+      int cellCount = 1;
+      try {
+        for (int d = this.dimensions - 1; d >= 0; d--) {
+          strides[d] = cellCount;
+          cellCount = Math.multiplyExact(cellCount, breakpoints[d].length + 1);
+        }
+      } catch (final ArithmeticException ex) {
+        throw new IllegalStateException("Too many combinations of coordinates: " + Arrays.deepToString(breakpoints));
+      }
+
+      // layers by the position they start applying from in the first dimension, with their positions in the others
+      final int firstPositions = breakpoints[0].length + 1;
+      @SuppressWarnings({"unchecked", "rawtypes"})
+      final Map<int[], OptionStateImpl>[] layers = new Map[firstPositions];
+      for (final Map.Entry<int[], OptionStateImpl.BuilderImpl> entry : this.builders.entrySet()) {
+        final int[] positions = new int[this.dimensions];
+        for (int d = 0; d < this.dimensions; d++) {
+          positions[d] = Arrays.binarySearch(breakpoints[d], entry.getKey()[d]) + 1;
+        }
+        if (layers[positions[0]] == null) layers[positions[0]] = new TreeMap<>(BuilderImpl::compare);
+        layers[positions[0]].put(positions, entry.getValue().build());
+      }
+
+      // each cell extends its predecessor in the first dimension with the layers starting there, so unchanged cells are shared
+      final OptionStateImpl.Persistent[] cells = new OptionStateImpl.Persistent[cellCount];
+      for (int index = 0; index < cellCount; index++) {
+        final int first = index / strides[0];
+        if (first == 0) {
+          cells[index] = OptionStateImpl.Persistent.EMPTY;
+          continue;
+        }
+
+        OptionStateImpl.Persistent cell = cells[index - strides[0]];
+        if (layers[first] != null) {
+          for (final Map.Entry<int[], OptionStateImpl> layer : layers[first].entrySet()) {
+            if (applies(layer.getKey(), index, strides, breakpoints)) cell = cell.with(layer.getValue());
+          }
+        }
+        cells[index] = cell;
+      }
+      return new MultiVersionedImpl(breakpoints, strides, cells);
+    }
+
+    // whether a layer starts at or below a cell in every dimension after the first
+    private static boolean applies(final int[] positions, final int index, final int[] strides, final int[][] breakpoints) {
+      for (int d = 1; d < positions.length; d++) {
+        if (positions[d] > (index / strides[d]) % (breakpoints[d].length + 1)) return false;
+      }
+      return true;
+    }
+  }
+}
@@ -23,15 +23,20 @@
  */
 package net.kyori.option;
 
+import java.util.function.Supplier;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import static java.util.Objects.requireNonNull;
+
 /**
  * A representation of a configurable option.
  *
  * <p>Keys must be unique among all feature flag instances.</p>
  *
+ * <p>Options created through the methods of this interface belong to the {@link OptionNamespace#defaultNamespace() default namespace}. Options that must be registered again, such as those of reloadable plugins, should be created in their own {@link OptionNamespace}.</p>
+ *
  * @param <V> the value type
  * @since 1.0.0
  */
@@ -68,6 +73,106 @@ public interface Option<V> {
     return OptionImpl.option(id, enumClazz, defaultValue);
   }
 
+  /**
+   * Create an option with an integer value type.
+   *
+   * <p>Values of integer options are stored unboxed, and can be read without boxing through {@link OptionState#intValue(Option)}.</p>
+   *
+   * <p>Flag keys must not be reused between flag instances.</p>
+   *
+   * @param id the flag id
+   * @param defaultValue the default value
+   * @return the flag instance
+   * @since 1.1.0
+   */
+  static Option<Integer> intOption(final String id, final int defaultValue) {
+    return OptionImpl.option(id, Integer.class, defaultValue);
+  }
+
+  /**
+   * Create an option with a long value type.
+   *
+   * <p>Values of long options are stored unboxed, and can be read without boxing through {@link OptionState#longValue(Option)}.</p>
+   *
+   * <p>Flag keys must not be reused between flag instances.</p>
+   *
+   * @param id the flag id
+   * @param defaultValue the default value
+   * @return the flag instance
+   * @since 1.1.0
+   */
+  static Option<Long> longOption(final String id, final long defaultValue) {
+    return OptionImpl.option(id, Long.class, defaultValue);
+  }
+
+  /**
+   * Create an option with a double value type.
+   *
+   * <p>Values of double options are stored unboxed, and can be read without boxing through {@link OptionState#doubleValue(Option)}.</p>
+   *
+   * <p>Flag keys must not be reused between flag instances.</p>
+   *
+   * @param id the flag id
+   * @param defaultValue the default value
+   * @return the flag instance
+   * @since 1.1.0
+   */
+  static Option<Double> doubleOption(final String id, final double defaultValue) {
+    return OptionImpl.option(id, Double.class, defaultValue);
+  }
+
+  /**
+   * Create an option with a rollout value type.
+   *
+   * <p>Rollouts are stored unboxed, and evaluated for a subject without allocating through {@link OptionState#enabledFor(Option, long)}.</p>
+   *
+   * <p>Flag keys must not be reused between flag instances.</p>
+   *
+   * @param id the flag id
+   * @param defaultValue the default value
+   * @return the flag instance
+   * @since 1.1.0
+   */
+  static Option<Rollout> rolloutOption(final String id, final Rollout defaultValue) {
+    return OptionImpl.option(id, Rollout.class, requireNonNull(defaultValue, "defaultValue"));
+  }
+
+  /**
+   * Create an option with a rollout value type, and a seed choosing which subjects are enabled.
+   *
+   * <p>Changing the seed enables a different set of subjects for the same rollout.</p>
+   *
+   * <p>Flag keys must not be reused between flag instances.</p>
+   *
+   * @param id the flag id
+   * @param defaultValue the default value
+   * @param seed the seed
+   * @return the flag instance
+   * @since 1.1.0
+   */
+  static Option<Rollout> rolloutOption(final String id, final Rollout defaultValue, final long seed) {
+    return OptionImpl.option(OptionNamespaceImpl.DEFAULT, id, Rollout.class, requireNonNull(defaultValue, "defaultValue"), seed);
+  }
+
+  /**
+   * Create an option whose default value is computed when first needed.
+   *
+   * <p>The supplier is called at most once, the first time the default is read, such as when a state without a value for the option is queried. Once it has returned, reading the default costs the same as for options with a fixed default. If it throws, the exception is propagated and it is called again on the next read.</p>
+   *
+   * <p>Flag keys must not be reused between flag instances.</p>
+   *
+   * @param id the flag id
+   * @param type the value type, which must be {@link Boolean}, {@link Integer}, {@link Long}, {@link Double}, {@link Rollout} or an enum
+   * @param defaultValue the supplier of the default value, which may only return null for enum options
+   * @param <V> the value type
+   * @return the flag instance
+   * @throws IllegalArgumentException if the value type is not supported
+   * @since 1.1.0
+   */
+  static <V> Option<V> lazyOption(final String id, final Class<V> type, final Supplier<? extends V> defaultValue) {
+    return OptionImpl.lazyOption(OptionNamespaceImpl.DEFAULT, id, type, defaultValue);
+  }
+
   /**
    * Get the option id.
    *
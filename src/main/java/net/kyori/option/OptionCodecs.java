@@ -0,0 +1,164 @@
+/*
+ * This file is part of option, licensed under the MIT License.
+ *
+ * Copyright (c) 2023 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.option;
+
+import java.util.function.Function;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A compiled set of string representations for the options of a registry.
+ *
+ * <p>Codecs resolve source keys to options and parse values, and are used to load option states from flat string sources like system properties, environment variables or configuration files, with {@link OptionState.Builder#values(java.util.Map, OptionCodecs)}.</p>
+ *
+ * <p>Boolean options accept {@code true} or {@code false}, and enum options accept constant names, ignoring case for both. Numeric options accept decimal numbers, and rollout options accept a percentage such as {@code 12.5%} or a bucket count such as {@code 1/8}.</p>
+ *
+ * @since 1.1.0
+ */
+@ApiStatus.NonExtendable
+public interface OptionCodecs {
+  /**
+   * Create a builder for codecs covering every option of a registry.
+   *
+   * @param registry the registry
+   * @return the builder
+   * @since 1.1.0
+   */
+  static @NotNull Builder optionCodecs(final @NotNull OptionRegistry registry) {
+    return new OptionCodecsImpl.BuilderImpl(registry);
+  }
+
+  /**
+   * Get the option a source key refers to.
+   *
+   * @param key the source key
+   * @return the option, if any
+   * @since 1.1.0
+   */
+  @Nullable Option<?> option(final @NotNull String key);
+
+  /**
+   * Parse a value for an option.
+   *
+   * @param option the option
+   * @param value the string representation of the value
+   * @param <V> the value type
+   * @return the parsed value
+   * @throws IllegalArgumentException if the value is not valid for the option, or the option is not known to these codecs
+   * @since 1.1.0
+   */
+  <V> @NotNull V decode(final @NotNull Option<V> option, final @NotNull String value);
+
+  /**
+   * A failure to load a single source entry.
+   *
+   * @since 1.1.0
+   */
+  @ApiStatus.NonExtendable
+  interface Failure {
+    /**
+     * Get the source key of the failed entry.
+     *
+     * @return the key
+     * @since 1.1.0
+     */
+    @NotNull String key();
+
+    /**
+     * Get the source value of the failed entry.
+     *
+     * @return the value
+     * @since 1.1.0
+     */
+    @NotNull String value();
+
+    /**
+     * Get the option the key referred to, if the key was recognised.
+     *
+     * @return the option
+     * @since 1.1.0
+     */
+    @Nullable Option<?> option();
+
+    /**
+     * Get a description of the failure.
+     *
+     * @return the description
+     * @since 1.1.0
+     */
+    @NotNull String message();
+  }
+
+  /**
+   * A builder for codecs.
+   *
+   * @since 1.1.0
+   */
+  @ApiStatus.NonExtendable
+  interface Builder {
+    /**
+     * Set a prefix that source keys must start with, followed by the option id.
+     *
+     * <p>Keys without the prefix are ignored, and keys with the prefix that match no option are reported as failures.
+     * Without a prefix, the default, keys that match no option are ignored.</p>
+     *
+     * @param prefix the prefix
+     * @return this builder
+     * @since 1.1.0
+     */
+    @NotNull Builder prefix(final @NotNull String prefix);
+
+    /**
+     * Match keys in environment variable style rather than by exact id.
+     *
+     * <p>The prefix and id are converted to upper case, and every character other than an ASCII letter or digit is replaced with {@code _}, so an id {@code net.example:flag/name} with prefix {@code app.} is read from {@code APP_NET_EXAMPLE_FLAG_NAME}.</p>
+     *
+     * @return this builder
+     * @since 1.1.0
+     */
+    @NotNull Builder environmentStyle();
+
+    /**
+     * Use a custom parser for the values of an option.
+     *
+     * <p>The parser should throw an {@link IllegalArgumentException} for invalid values.</p>
+     *
+     * @param option the option
+     * @param parser the value parser
+     * @param <V> the value type
+     * @return this builder
+     * @since 1.1.0
+     */
+    <V> @NotNull Builder codec(final @NotNull Option<V> option, final @NotNull Function<String, ? extends V> parser);
+
+    /**
+     * Compile the codecs.
+     *
+     * @return the codecs
+     * @since 1.1.0
+     */
+    @NotNull OptionCodecs build();
+  }
+}
@@ -0,0 +1,255 @@
+/*
+ * This file is part of option, licensed under the MIT License.
+ *
+ * Copyright (c) 2023 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.option;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import static java.util.Objects.requireNonNull;
+
+final class OptionCodecsImpl implements OptionCodecs {
+  private final String prefix;
+  private final Map<String, Option<?>> keys;
+  private final IdentityHashMap<Option<?>, Function<String, ?>> parsers;
+
+  OptionCodecsImpl(final String prefix, final Map<String, Option<?>> keys, final IdentityHashMap<Option<?>, Function<String, ?>> parsers) {
+    this.prefix = prefix;
+    this.keys = keys;
+    this.parsers = parsers;
+  }
+
+  static String environmentName(final String key) {
+    final StringBuilder name = new StringBuilder(key.length());
+    for (int i = 0; i < key.length(); i++) {
+      final char c = key.charAt(i);
+      name.append(c < 0x80 && Character.isLetterOrDigit(c) ? Character.toUpperCase(c) : '_');
+    }
+    return name.toString();
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  static @Nullable Function<String, ?> defaultParser(final Class<?> type) {
+    if (type == Boolean.class) {
+      return value -> {
+        if (value.equalsIgnoreCase("true")) return Boolean.TRUE;
+        if (value.equalsIgnoreCase("false")) return Boolean.FALSE;
+        throw new IllegalArgumentException("expected true or false");
+      };
+    } else if (type == Integer.class) {
+      return value -> {
+        try {
+          return Integer.valueOf(value.trim());
+        } catch (final NumberFormatException ex) {
+          throw new IllegalArgumentException("expected an integer");
+        }
+      };
+    } else if (type == Long.class) {
+      return value -> {
+        try {
+          return Long.valueOf(value.trim());
+        } catch (final NumberFormatException ex) {
+          throw new IllegalArgumentException("expected an integer");
+        }
+      };
+    } else if (type == Double.class) {
+      return value -> {
+        try {
+          return Double.valueOf(value); // permits surrounding whitespace
+        } catch (final NumberFormatException ex) {
+          throw new IllegalArgumentException("expected a number");
+        }
+      };
+    } else if (type == Rollout.class) {
+      return value -> {
+        try {
+          final String trimmed = value.trim();
+          final int slash = trimmed.indexOf('/');
+          if (slash >= 0) return Rollout.buckets(Long.parseLong(trimmed.substring(0, slash).trim()), Long.parseLong(trimmed.substring(slash + 1).trim()));
+          return Rollout.percentage(Double.parseDouble(trimmed.endsWith("%") ? trimmed.substring(0, trimmed.length() - 1) : trimmed));
+        } catch (final NumberFormatException ex) {
+          throw new IllegalArgumentException("expected a percentage or enabled/total buckets");
+        }
+      };
+    } else if (type.isEnum()) {
+      final Map<String, Object> constants = new HashMap<>();
+      for (final Enum<?> constant : ((Class<? extends Enum>) type).getEnumConstants()) {
+        constants.put(constant.name(), constant);
+        constants.putIfAbsent(constant.name().toUpperCase(Locale.ROOT), constant);
+      }
+      return value -> {
+        Object constant = constants.get(value);
+        if (constant == null) constant = constants.get(value.toUpperCase(Locale.ROOT));
+        if (constant == null) throw new IllegalArgumentException("expected one of " + constants.keySet());
+        return constant;
+      };
+    }
+    return null;
+  }
+
+  @Override
+  public @Nullable Option<?> option(final @NotNull String key) {
+    return this.keys.get(requireNonNull(key, "key"));
+  }
+
+  @Override
+  public <V> @NotNull V decode(final @NotNull Option<V> option, final @NotNull String value) {
+    final Function<String, ?> parser = this.parsers.get(requireNonNull(option, "option"));
+    if (parser == null) throw new IllegalArgumentException("No codec is known for option " + option.id());
+    return option.type().cast(requireNonNull(parser.apply(requireNonNull(value, "value")), "parsed value"));
+  }
+
+  // applies every valid entry of the source to the builder, reporting the rest
+  void load(final OptionStateImpl.BuilderImpl builder, final Map<?, ?> source, final Consumer<? super Failure> failures) {
+    for (final Map.Entry<?, ?> entry : source.entrySet()) {
+      if (!(entry.getKey() instanceof String) || !(entry.getValue() instanceof String)) continue;
+      final String key = (String) entry.getKey();
+      final String value = (String) entry.getValue();
+
+      final Option<?> option = this.keys.get(key);
+      if (option == null) {
+        if (!this.prefix.isEmpty() && key.startsWith(this.prefix)) failures.accept(new FailureImpl(key, value, null, "unknown option")); // every key has the empty prefix
+        continue;
+      }
+
+      final Object parsed;
+      try {
+        parsed = this.parsers.get(option).apply(value);
+      } catch (final IllegalArgumentException ex) {
+        failures.accept(new FailureImpl(key, value, option, ex.getMessage() == null ? "invalid value" : ex.getMessage()));
+        continue;
+      } catch (final RuntimeException ex) {
+        failures.accept(new FailureImpl(key, value, option, "codec failed: " + ex));
+        continue;
+      }
+      if (parsed == null) {
+        failures.accept(new FailureImpl(key, value, option, "codec returned no value"));
+      } else if (!option.type().isInstance(parsed)) {
+        failures.accept(new FailureImpl(key, value, option, "codec returned a " + parsed.getClass().getName() + ", expected a " + option.type().getName()));
+      } else {
+        builder.put(option, option.type().cast(parsed));
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return this.getClass().getSimpleName() + "{" +
+      "keys=" + this.keys.keySet() +
+      '}';
+  }
+
+  static final class FailureImpl implements Failure {
+    private final String key;
+    private final String value;
+    private final @Nullable Option<?> option;
+    private final String message;
+
+    FailureImpl(final String key, final String value, final @Nullable Option<?> option, final String message) {
+      this.key = key;
+      this.value = value;
+      this.option = option;
+      this.message = message;
+    }
+
+    @Override
+    public @NotNull String key() {
+      return this.key;
+    }
+
+    @Override
+    public @NotNull String value() {
+      return this.value;
+    }
+
+    @Override
+    public @Nullable Option<?> option() {
+      return this.option;
+    }
+
+    @Override
+    public @NotNull String message() {
+      return this.message;
+    }
+
+    @Override
+    public String toString() {
+      return "Invalid value '" + this.value + "' for " + this.key + ": " + this.message;
+    }
+  }
+
+  static final class BuilderImpl implements OptionCodecs.Builder {
+    private final OptionRegistry registry;
+    private final IdentityHashMap<Option<?>, Function<String, ?>> parsers = new IdentityHashMap<>();
+    private String prefix = "";
+    private boolean environmentStyle;
+
+    BuilderImpl(final OptionRegistry registry) {
+      this.registry = requireNonNull(registry, "registry");
+    }
+
+    @Override
+    public @NotNull Builder prefix(final @NotNull String prefix) {
+      this.prefix = requireNonNull(prefix, "prefix");
+      return this;
+    }
+
+    @Override
+    public @NotNull Builder environmentStyle() {
+      this.environmentStyle = true;
+      return this;
+    }
+
+    @Override
+    public <V> @NotNull Builder codec(final @NotNull Option<V> option, final @NotNull Function<String, ? extends V> parser) {
+      this.parsers.put(requireNonNull(option, "option"), requireNonNull(parser, "parser"));
+      return this;
+    }
+
+    @Override
+    public @NotNull OptionCodecs build() {
+      final String prefix = this.environmentStyle ? environmentName(this.prefix) : this.prefix;
+      final Map<String, Option<?>> keys = new HashMap<>();
+      final IdentityHashMap<Option<?>, Function<String, ?>> parsers = new IdentityHashMap<>();
+      for (final Option<?> option : this.registry.options()) {
+        Function<String, ?> parser = this.parsers.get(option);
+        if (parser == null) parser = defaultParser(option.type());
+        if (parser == null) continue; // no string representation
+
+        final String key = this.environmentStyle ? environmentName(this.prefix + option.id()) : this.prefix + option.id();
+        final Option<?> existing = keys.put(key, option);
+        if (existing != null) {
+          throw new IllegalStateException("Options " + existing.id() + " and " + option.id() + " are both read from key " + key);
+        }
+        parsers.put(option, parser);
+      }
+      return new OptionCodecsImpl(prefix, keys, parsers);
+    }
+  }
+}
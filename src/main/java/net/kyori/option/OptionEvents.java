@@ -0,0 +1,56 @@
+/*
+ * This file is part of option, licensed under the MIT License.
+ *
+ * Copyright (c) 2023 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.option;
+
+import org.jetbrains.annotations.Nullable;
+
+// Java Flight Recorder events for state construction, only emitted when metrics are enabled.
+// There is no supported JFR API on Java 8, so these are no-ops; Java 11+ records real events.
+final class OptionEvents {
+  private OptionEvents() {
+  }
+
+  // each begin method returns an in-progress event, or null if the event is not being recorded
+
+  static @Nullable Object beginBuild() {
+    return null;
+  }
+
+  static void commitBuild(final @Nullable Object event, final OptionStateImpl state) {
+  }
+
+  static @Nullable Object beginFlatten() {
+    return null;
+  }
+
+  static void commitFlatten(final @Nullable Object event, final int versions, final int size) {
+  }
+
+  static @Nullable Object beginVersionLookup() {
+    return null;
+  }
+
+  static void commitVersionLookup(final @Nullable Object event, final int version, final int resolvedVersion) {
+  }
+}
@@ -0,0 +1,200 @@
+/*
+ * This file is part of option, licensed under the MIT License.
+ *
+ * Copyright (c) 2023 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.option;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A source of option values read from properties files, and reloaded when they change.
+ *
+ * <p>A source watches either a single file or every matching file in a directory, keeping the values it read in a {@link LiveOptionState}. Files in a directory are applied in order of their names, so a later file overrides the keys of an earlier one.</p>
+ *
+ * <p>Bursts of changes are collected until the files have been quiet for the debounce period, and only the files that changed are read again. Keys whose values did not change are not decoded again, and are left untouched in the live state. Invalid values are reported without replacing the last valid value of their option.</p>
+ *
+ * @since 1.1.0
+ */
+@ApiStatus.NonExtendable
+public interface OptionFileSource extends Closeable {
+  /**
+   * Create a builder for a source watching a file or directory.
+   *
+   * @param path the file, or a directory of files
+   * @param codecs the codecs to read values with
+   * @return the builder
+   * @since 1.1.0
+   */
+  static @NotNull Builder optionFileSource(final @NotNull Path path, final @NotNull OptionCodecs codecs) {
+    return new OptionFileSourceImpl.BuilderImpl(path, codecs);
+  }
+
+  /**
+   * Get the state holding the values of this source.
+   *
+   * @return the live state
+   * @since 1.1.0
+   */
+  @NotNull LiveOptionState state();
+
+  /**
+   * Read every file of this source again, without waiting for a change to be seen.
+   *
+   * @return the result of the reload
+   * @since 1.1.0
+   */
+  @NotNull Reload reload();
+
+  /**
+   * Stop watching for changes.
+   *
+   * <p>The state keeps the values last read.</p>
+   *
+   * @since 1.1.0
+   */
+  @Override
+  void close();
+
+  /**
+   * The result of reading changed files.
+   *
+   * @since 1.1.0
+   */
+  @ApiStatus.NonExtendable
+  interface Reload {
+    /**
+     * Get the files that were read.
+     *
+     * @return the files
+     * @since 1.1.0
+     */
+    @NotNull Set<Path> files();
+
+    /**
+     * Get the number of keys whose values changed.
+     *
+     * @return the number of changed keys
+     * @since 1.1.0
+     */
+    int changedKeys();
+
+    /**
+     * Get the time taken to read the files and apply the changes.
+     *
+     * @return the duration
+     * @since 1.1.0
+     */
+    @NotNull Duration duration();
+
+    /**
+     * Get the entries whose values could not be read.
+     *
+     * <p>Their options keep the values they had before the reload.</p>
+     *
+     * @return the failures
+     * @since 1.1.0
+     */
+    @NotNull List<OptionCodecs.Failure> failures();
+
+    /**
+     * Get the error that prevented a file from being read, if any.
+     *
+     * <p>The values of a file that could not be read are kept as they were.</p>
+     *
+     * @return the error
+     * @since 1.1.0
+     */
+    @Nullable IOException error();
+  }
+
+  /**
+   * A builder for file sources.
+   *
+   * @since 1.1.0
+   */
+  @ApiStatus.NonExtendable
+  interface Builder {
+    /**
+     * Set the values the files are applied on top of.
+     *
+     * <p>Options whose keys are removed from every file return to these values.</p>
+     *
+     * @param base the base state
+     * @return this builder
+     * @since 1.1.0
+     */
+    @NotNull Builder base(final @NotNull OptionState base);
+
+    /**
+     * Set how long files must go without changes before they are read again.
+     *
+     * <p>The default is 100 milliseconds.</p>
+     *
+     * @param debounce the debounce period
+     * @return this builder
+     * @since 1.1.0
+     */
+    @NotNull Builder debounce(final @NotNull Duration debounce);
+
+    /**
+     * Set a glob matching the names of files to read, when watching a directory.
+     *
+     * <p>The default is {@code *.properties}.</p>
+     *
+     * @param glob the file name glob
+     * @return this builder
+     * @since 1.1.0
+     */
+    @NotNull Builder glob(final @NotNull String glob);
+
+    /**
+     * Set a listener called with the result of every reload, starting with the first read in {@link #build()}.
+     *
+     * <p>The listener is called on the thread watching the files, or the thread calling {@link OptionFileSource#reload()}.</p>
+     *
+     * @param listener the listener
+     * @return this builder
+     * @since 1.1.0
+     */
+    @NotNull Builder onReload(final @NotNull Consumer<? super Reload> listener);
+
+    /**
+     * Read the files and start watching them.
+     *
+     * <p>Errors reading the files are reported to the {@link #onReload(Consumer) reload listener} rather than thrown.</p>
+     *
+     * @return the source
+     * @throws IOException if the files cannot be watched
+     * @since 1.1.0
+     */
+    @NotNull OptionFileSource build() throws IOException;
+  }
+}
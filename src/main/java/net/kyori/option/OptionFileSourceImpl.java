@@ -0,0 +1,373 @@
+/*
+ * This file is part of option, licensed under the MIT License.
+ *
+ * Copyright (c) 2023 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.option;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import static java.util.Objects.requireNonNull;
+
+final class OptionFileSourceImpl implements OptionFileSource {
+  private final Path directory;
+  private final @Nullable Path file; // the only file read, or null to read every matching file of the directory
+  private final PathMatcher matcher;
+  private final OptionCodecsImpl codecs;
+  private final OptionStateImpl base;
+  private final LiveOptionState state;
+  private final long debounceNanos;
+  private final Consumer<? super Reload> listener;
+  private final WatchService watcher;
+  private final TreeMap<Path, Map<String, String>> files = new TreeMap<>(); // the entries of every read file, in order of application; guarded by this
+
+  OptionFileSourceImpl(final BuilderImpl builder) throws IOException {
+    if (Files.isDirectory(builder.path)) {
+      this.directory = builder.path.toAbsolutePath();
+      this.file = null;
+    } else {
+      final Path file = builder.path.toAbsolutePath();
+      this.directory = requireNonNull(file.getParent(), "parent directory");
+      this.file = file;
+    }
+    this.matcher = this.directory.getFileSystem().getPathMatcher("glob:" + builder.glob);
+    this.codecs = builder.codecs;
+    this.base = builder.base;
+    this.state = OptionState.live(this.base);
+    this.debounceNanos = builder.debounce.toNanos();
+    this.listener = builder.listener;
+
+    this.watcher = this.directory.getFileSystem().newWatchService();
+    try {
+      this.directory.register(this.watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+    } catch (final IOException ex) {
+      this.watcher.close();
+      throw ex;
+    }
+    this.reload();
+
+    final Thread thread = new Thread(this::watch, "option-file-source " + builder.path);
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  private static Map<String, String> read(final Path path) throws IOException {
+    final Properties properties = new Properties();
+    try (final Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+      properties.load(reader);
+    }
+    final Map<String, String> entries = new HashMap<>();
+    for (final String key : properties.stringPropertyNames()) {
+      entries.put(key, properties.getProperty(key));
+    }
+    return entries;
+  }
+
+  private boolean matches(final Path path) {
+    return this.file != null ? this.file.equals(path) : this.matcher.matches(path.getFileName());
+  }
+
+  @Override
+  public @NotNull LiveOptionState state() {
+    return this.state;
+  }
+
+  @Override
+  public @NotNull Reload reload() {
+    final Set<Path> paths = new TreeSet<>();
+    IOException error = null;
+    synchronized (this) {
+      paths.addAll(this.files.keySet()); // so removed files are seen
+    }
+    if (this.file != null) {
+      paths.add(this.file);
+    } else {
+      try (final DirectoryStream<Path> stream = Files.newDirectoryStream(this.directory)) {
+        for (final Path path : stream) {
+          if (this.matches(path)) paths.add(path);
+        }
+      } catch (final IOException ex) {
+        error = ex;
+      }
+    }
+    return this.reload(paths, error);
+  }
+
+  private Reload reload(final Set<Path> paths, final @Nullable IOException listError) {
+    final Reload reload;
+    synchronized (this) {
+      reload = this.apply(paths, listError);
+    }
+    this.listener.accept(reload);
+    return reload;
+  }
+
+  // reads the given files, and applies the keys whose values changed on top of the current state
+  private Reload apply(final Set<Path> paths, final @Nullable IOException listError) {
+    final long start = System.nanoTime();
+    IOException error = listError;
+    final Set<String> keys = new HashSet<>();
+    for (final Path path : paths) {
+      Map<String, String> entries;
+      try {
+        entries = read(path);
+      } catch (final NoSuchFileException ex) {
+        entries = Collections.emptyMap();
+      } catch (final IOException ex) {
+        if (error == null) {
+          error = ex;
+        } else {
+          error.addSuppressed(ex);
+        }
+        continue; // keep the entries last read
+      }
+
+      final Map<String, String> previous = entries.isEmpty() ? this.files.remove(path) : this.files.put(path, entries);
+      if (previous != null) {
+        for (final Map.Entry<String, String> entry : previous.entrySet()) {
+          if (!entry.getValue().equals(entries.get(entry.getKey()))) keys.add(entry.getKey());
+        }
+      }
+      for (final String key : entries.keySet()) {
+        if (previous == null || !previous.containsKey(key)) keys.add(key);
+      }
+    }
+
+    final List<OptionCodecs.Failure> failures = new ArrayList<>();
+    if (!keys.isEmpty()) {
+      final Map<String, String> updated = new HashMap<>();
+      final Set<Option<?>> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+      for (final String key : keys) {
+        final String value = this.value(key);
+        if (value != null) {
+          updated.put(key, value);
+        } else {
+          final Option<?> option = this.codecs.option(key);
+          if (option != null) removed.add(option);
+        }
+      }
+
+      final OptionStateImpl.BuilderImpl overrides = new OptionStateImpl.BuilderImpl();
+      this.codecs.load(overrides, updated, failures::add);
+      OptionStateImpl next = OptionStateImpl.Overlay.of(OptionStateImpl.flat(this.state.snapshot()), overrides.build());
+      if (!removed.isEmpty()) { // an overlay cannot unset values, so rebuild without them
+        final OptionStateImpl current = next;
+        final OptionStateImpl.BuilderImpl builder = new OptionStateImpl.BuilderImpl();
+        current.allOptions(option -> {
+          if (!removed.contains(option)) builder.copy(current, option);
+          return true;
+        });
+        for (final Option<?> option : removed) {
+          if (this.base.has(option)) builder.copy(this.base, option);
+        }
+        next = builder.build();
+      }
+      this.state.set(next);
+    }
+    return new ReloadImpl(paths, keys.size(), System.nanoTime() - start, failures, error);
+  }
+
+  // the value of a key in the last file holding it
+  private @Nullable String value(final String key) {
+    for (final Map<String, String> entries : this.files.descendingMap().values()) {
+      final String value = entries.get(key);
+      if (value != null) return value;
+    }
+    return null;
+  }
+
+  private void watch() {
+    try {
+      boolean valid = true;
+      while (valid) {
+        WatchKey key = this.watcher.take();
+        final Set<Path> paths = new TreeSet<>();
+        boolean overflow = false;
+        do { // until the directory has been quiet for the debounce period
+          for (final WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+              overflow = true;
+            } else {
+              final Path path = this.directory.resolve((Path) event.context());
+              if (this.matches(path)) paths.add(path);
+            }
+          }
+          valid = key.reset();
+          key = this.watcher.poll(this.debounceNanos, TimeUnit.NANOSECONDS);
+        } while (key != null);
+
+        try {
+          if (overflow || !valid) {
+            this.reload();
+          } else if (!paths.isEmpty()) {
+            this.reload(paths, null);
+          }
+        } catch (final RuntimeException ex) {
+          final Thread thread = Thread.currentThread();
+          thread.getUncaughtExceptionHandler().uncaughtException(thread, ex);
+        }
+      }
+    } catch (final ClosedWatchServiceException | InterruptedException ignored) {
+      // stopped
+    }
+  }
+
+  @Override
+  public void close() {
+    try {
+      this.watcher.close();
+    } catch (final IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return this.getClass().getSimpleName() + "{" +
+      "path=" + (this.file != null ? this.file : this.directory) +
+      '}';
+  }
+
+  static final class ReloadImpl implements Reload {
+    private final Set<Path> files;
+    private final int changedKeys;
+    private final long nanos;
+    private final List<OptionCodecs.Failure> failures;
+    private final @Nullable IOException error;
+
+    ReloadImpl(final Set<Path> files, final int changedKeys, final long nanos, final List<OptionCodecs.Failure> failures, final @Nullable IOException error) {
+      this.files = Collections.unmodifiableSet(files);
+      this.changedKeys = changedKeys;
+      this.nanos = nanos;
+      this.failures = Collections.unmodifiableList(failures);
+      this.error = error;
+    }
+
+    @Override
+    public @NotNull Set<Path> files() {
+      return this.files;
+    }
+
+    @Override
+    public int changedKeys() {
+      return this.changedKeys;
+    }
+
+    @Override
+    public @NotNull Duration duration() {
+      return Duration.ofNanos(this.nanos);
+    }
+
+    @Override
+    public @NotNull List<OptionCodecs.Failure> failures() {
+      return this.failures;
+    }
+
+    @Override
+    public @Nullable IOException error() {
+      return this.error;
+    }
+
+    @Override
+    public String toString() {
+      return this.getClass().getSimpleName() + "{" +
+        "files=" + this.files + "," +
+        "changedKeys=" + this.changedKeys + "," +
+        "duration=" + this.duration() + "," +
+        "failures=" + this.failures + "," +
+        "error=" + this.error +
+        '}';
+    }
+  }
+
+  static final class BuilderImpl implements OptionFileSource.Builder {
+    private final Path path;
+    private final OptionCodecsImpl codecs;
+    private OptionStateImpl base = OptionStateImpl.EMPTY;
+    private Duration debounce = Duration.ofMillis(100);
+    private String glob = "*.properties";
+    private Consumer<? super Reload> listener = reload -> { };
+
+    BuilderImpl(final Path path, final OptionCodecs codecs) {
+      this.path = requireNonNull(path, "path");
+      this.codecs = (OptionCodecsImpl) requireNonNull(codecs, "codecs");
+    }
+
+    @Override
+    public @NotNull Builder base(final @NotNull OptionState base) {
+      this.base = OptionStateImpl.flat(requireNonNull(base, "base"));
+      return this;
+    }
+
+    @Override
+    public @NotNull Builder debounce(final @NotNull Duration debounce) {
+      if (requireNonNull(debounce, "debounce").isNegative()) throw new IllegalArgumentException("Debounce period must not be negative, was " + debounce);
+      this.debounce = debounce;
+      return this;
+    }
+
+    @Override
+    public @NotNull Builder glob(final @NotNull String glob) {
+      this.glob = requireNonNull(glob, "glob");
+      return this;
+    }
+
+    @Override
+    public @NotNull Builder onReload(final @NotNull Consumer<? super Reload> listener) {
+      this.listener = requireNonNull(listener, "listener");
+      return this;
+    }
+
+    @Override
+    public @NotNull OptionFileSource build() throws IOException {
+      return new OptionFileSourceImpl(this);
+    }
+  }
+}
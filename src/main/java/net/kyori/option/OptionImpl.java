@@ -23,37 +23,286 @@
  */
 package net.kyori.option;
 
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import static java.util.Objects.requireNonNull;
 
 final class OptionImpl<V> implements Option<V> {
-  private static final Set<String> KNOWN_KEYS = ConcurrentHashMap.newKeySet();
+  private static final int MAX_PACKED_ENUM_CONSTANTS = 1 << 8;
+  // how values are stored in their bit field
+  private static final int UNPACKED = 0;
+  private static final int INDEXED = 1; // position in packedValues
+  private static final int INT = 2;
+  private static final int LONG = 3;
+  private static final int DOUBLE = 4; // raw IEEE 754 bits
+  private static final int ROLLOUT = 5; // threshold, see RolloutImpl
+  private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+  // registration state, all guarded by OptionImpl.class
+  private static final Map<String, OptionNamespaceImpl> KNOWN_KEYS = new HashMap<>(); // id -> owning namespace
+  private static final ReferenceQueue<OptionImpl<?>> COLLECTED = new ReferenceQueue<>();
+  private static final Set<Slots> TRACKED = new HashSet<>(); // keeps the references alive until they are enqueued
+  private static final BitSet FREE_ORDINALS = new BitSet();
+  private static final BitSet FREE_PACKED_INDEXES = new BitSet();
+  private static final Map<Integer, BitSet> FREE_BIT_OFFSETS = new HashMap<>(); // width -> offsets of free fields
+  private static int nextOrdinal;
+  private static int nextPackedIndex;
+  private static int nextBitOffset;
 
   private final String id;
   private final Class<V> type;
-  private final @Nullable V defaultValue; // excluded from equality comparisons, it does not form part of the option identity
+  // excluded from equality comparisons, they do not form part of the option identity
+  private @Nullable Defaults<V> defaults; // null until a lazy default is evaluated, safe to read racily as Defaults is immutable
+  private @Nullable Supplier<? extends V> defaultSupplier; // guarded by this, cleared once evaluated
+  private final OptionNamespaceImpl namespace;
+  private final int ordinal; // dense index assigned at registration, used to address option state storage
+  // boolean, small enum and numeric values are stored as bit fields rather than references
+  private final int packedIndex; // index in the presence mask, or -1 if this option is not packed
+  private final int packing;
+  private final int bitOffset;
+  private final long bitMask;
+  private final V @Nullable [] packedValues; // packed value -> value, for indexed packing
+  private final long salt; // mixed with subject ids to evaluate rollouts
+  private final int hashCode;
+  private final OptionMetricsImpl.@Nullable Counters counters; // null unless metrics are enabled
 
-  OptionImpl(final @NotNull String id, final @NotNull Class<V> type, final @Nullable V defaultValue) {
+  // called with the OptionImpl.class lock held
+  private OptionImpl(final @NotNull String id, final @NotNull Class<V> type, final @Nullable V defaultValue, final @Nullable Supplier<? extends V> defaultSupplier, final @NotNull OptionNamespaceImpl namespace, final long seed) {
     this.id = id;
     this.type = type;
-    this.defaultValue = defaultValue;
+    this.namespace = namespace;
+    this.ordinal = take(FREE_ORDINALS, nextOrdinal);
+    if (this.ordinal == nextOrdinal) nextOrdinal++;
+    this.salt = OptionRegistryImpl.mix(OptionRegistryImpl.hash(id) + seed * GOLDEN_GAMMA);
+    this.hashCode = Objects.hash(id, type);
+    this.packedValues = packedValues(type);
+    this.packing = this.packedValues != null ? INDEXED : type == Integer.class ? INT : type == Long.class ? LONG : type == Double.class ? DOUBLE : type == Rollout.class ? ROLLOUT : UNPACKED;
+    if (this.packing != UNPACKED) {
+      final int width = this.packing == INDEXED ? Math.max(1, Integer.SIZE - Integer.numberOfLeadingZeros(this.packedValues.length - 1)) : this.packing == INT ? Integer.SIZE : Long.SIZE;
+      this.packedIndex = take(FREE_PACKED_INDEXES, nextPackedIndex);
+      if (this.packedIndex == nextPackedIndex) nextPackedIndex++;
+      this.bitOffset = allocateBits(width);
+      this.bitMask = width == Long.SIZE ? -1L : (1L << width) - 1;
+    } else {
+      this.packedIndex = -1;
+      this.bitOffset = 0;
+      this.bitMask = 0;
+    }
+    synchronized (this) { // pairs with evaluateDefault, in case the option is published racily
+      if (defaultSupplier == null) {
+        this.defaults = this.defaults(defaultValue);
+      } else {
+        this.defaultSupplier = defaultSupplier;
+      }
+    }
+    this.counters = OptionMetricsImpl.counters(this);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T @Nullable [] packedValues(final Class<T> type) {
+    if (type == Boolean.class) {
+      return (T[]) new Boolean[] {Boolean.FALSE, Boolean.TRUE};
+    } else if (type.isEnum()) {
+      final T[] constants = type.getEnumConstants();
+      return constants.length > 0 && constants.length <= MAX_PACKED_ENUM_CONSTANTS ? constants : null;
+    }
+    return null;
+  }
+
+  // the lowest free index, or next if none are free
+  private static int take(final BitSet free, final int next) {
+    final int index = free.nextSetBit(0);
+    if (index < 0) return next;
+    free.clear(index);
+    return index;
+  }
+
+  private static int allocateBits(final int width) {
+    final BitSet free = FREE_BIT_OFFSETS.get(width);
+    if (free != null && !free.isEmpty()) return take(free, -1);
+
+    int offset = nextBitOffset;
+    if ((offset & (Long.SIZE - 1)) + width > Long.SIZE) { // fields never straddle two words
+      offset = (offset + Long.SIZE) & -Long.SIZE;
+    }
+    nextBitOffset = offset + width;
+    return offset;
   }
 
   static <T> Option<T> option(final String id, final Class<T> type, final @Nullable T defaultValue) {
-    if (!KNOWN_KEYS.add(id)) {
+    return option(OptionNamespaceImpl.DEFAULT, id, type, defaultValue);
+  }
+
+  static <T> Option<T> option(final OptionNamespaceImpl namespace, final String id, final Class<T> type, final @Nullable T defaultValue) {
+    return option(namespace, id, type, defaultValue, 0);
+  }
+
+  static <T> Option<T> option(final OptionNamespaceImpl namespace, final String id, final Class<T> type, final @Nullable T defaultValue, final long seed) {
+    return register(namespace, id, type, defaultValue, null, seed);
+  }
+
+  static <T> Option<T> lazyOption(final OptionNamespaceImpl namespace, final String id, final Class<T> type, final Supplier<? extends T> defaultValue) {
+    requireNonNull(type, "type");
+    if (type != Boolean.class && type != Integer.class && type != Long.class && type != Double.class && type != Rollout.class && !type.isEnum()) {
+      throw new IllegalArgumentException("Unsupported option type " + type.getName());
+    }
+    return register(namespace, id, type, null, requireNonNull(defaultValue, "defaultValue"), 0);
+  }
+
+  private static synchronized <T> Option<T> register(final OptionNamespaceImpl namespace, final String id, final Class<T> type, final @Nullable T defaultValue, final @Nullable Supplier<? extends T> defaultSupplier, final long seed) {
+    requireNonNull(id, "id");
+    requireNonNull(type, "type");
+    reclaim();
+    if (namespace.closed()) throw new IllegalStateException("Namespace " + namespace.name() + " is closed");
+    if (KNOWN_KEYS.putIfAbsent(id, namespace) != null) {
       throw new IllegalStateException("Key " + id + " has already been used. Option keys must be unique.");
     }
+    if (namespace != OptionNamespaceImpl.DEFAULT) namespace.ids().add(id); // default ids are never released
+
+    final OptionImpl<T> option = new OptionImpl<>(id, type, defaultValue, defaultSupplier, namespace, seed);
+    TRACKED.add(new Slots(option));
+    return option;
+  }
+
+  // releases the ids of a namespace, leaving its options usable
+  static synchronized void close(final OptionNamespaceImpl namespace) {
+    for (final String id : namespace.ids()) {
+      KNOWN_KEYS.remove(id, namespace);
+    }
+    namespace.ids().clear();
+  }
+
+  // frees the storage of collected options, which no state can still hold, for reuse by new options
+  private static void reclaim() {
+    Slots slots;
+    while ((slots = (Slots) COLLECTED.poll()) != null) {
+      TRACKED.remove(slots);
+      FREE_ORDINALS.set(slots.ordinal);
+      if (slots.packedIndex >= 0) {
+        FREE_PACKED_INDEXES.set(slots.packedIndex);
+        FREE_BIT_OFFSETS.computeIfAbsent(slots.width, width -> new BitSet()).set(slots.bitOffset);
+      }
+      if (slots.namespace != OptionNamespaceImpl.DEFAULT && slots.namespace.ids().remove(slots.id)) {
+        KNOWN_KEYS.remove(slots.id, slots.namespace);
+      }
+    }
+  }
 
-    return new OptionImpl<>(
-      requireNonNull(id, "id"),
-      requireNonNull(type, "type"),
-      defaultValue
-    );
+  static int ordinal(final @NotNull Option<?> option) {
+    return ((OptionImpl<?>) option).ordinal;
+  }
+
+  // only called when metrics are enabled
+  static void recordRead(final @NotNull Option<?> option, final boolean hit) {
+    ((OptionImpl<?>) option).counters.read(hit);
+  }
+
+  boolean packed() {
+    return this.packedIndex >= 0;
+  }
+
+  int packedIndex() {
+    return this.packedIndex;
+  }
+
+  int bitOffset() {
+    return this.bitOffset;
+  }
+
+  long packedDefault() {
+    Defaults<V> defaults = this.defaults;
+    if (defaults == null) defaults = this.evaluateDefault();
+    return defaults.packed;
+  }
+
+  private Defaults<V> defaults(final @Nullable V value) {
+    return new Defaults<>(value, value == null || this.packing == UNPACKED ? 0 : this.pack(value));
+  }
+
+  private synchronized Defaults<V> evaluateDefault() {
+    Defaults<V> defaults = this.defaults;
+    if (defaults == null) { // not evaluated by another thread while waiting
+      final V value = this.type.cast(this.defaultSupplier.get());
+      if (value == null && !this.type.isEnum()) { // booleans, numbers and rollouts are read unboxed, where null has no representation
+        throw new NullPointerException("Lazy default of option " + this.id + " must not be null");
+      }
+      defaults = this.defaults(value);
+      this.defaults = defaults;
+      this.defaultSupplier = null;
+    }
+    return defaults;
+  }
+
+  long pack(final @NotNull Object value) {
+    switch (this.packing) {
+      case INT: return ((Integer) value) & this.bitMask;
+      case LONG: return (Long) value;
+      case DOUBLE: return Double.doubleToRawLongBits((Double) value);
+      case ROLLOUT: return ((RolloutImpl) value).threshold();
+      default: return value instanceof Boolean ? ((Boolean) value ? 1 : 0) : ((Enum<?>) value).ordinal();
+    }
+  }
+
+  long unpackRaw(final long @NotNull [] bits) {
+    return (bits[this.bitOffset >>> 6] >>> this.bitOffset) & this.bitMask;
+  }
+
+  @NotNull V unpack(final long @NotNull [] bits) {
+    return this.unpack(this.unpackRaw(bits));
+  }
+
+  @SuppressWarnings("unchecked")
+  @NotNull V unpack(final long packed) {
+    switch (this.packing) {
+      case INT: return (V) Integer.valueOf((int) packed);
+      case LONG: return (V) Long.valueOf(packed);
+      case DOUBLE: return (V) Double.valueOf(Double.longBitsToDouble(packed));
+      case ROLLOUT: return (V) new RolloutImpl(packed);
+      default: return this.packedValues[(int) packed];
+    }
+  }
+
+  // whether a value read from outside the JVM is a packed value of this option
+  boolean validPacked(final long packed) {
+    switch (this.packing) {
+      case INDEXED: return packed >= 0 && packed < this.packedValues.length;
+      case ROLLOUT: return RolloutImpl.valid(packed);
+      default: return (packed & ~this.bitMask) == 0;
+    }
+  }
+
+  // the hash code of the value a packed value represents, without boxing it
+  int packedHash(final long packed) {
+    switch (this.packing) {
+      case INT: return (int) packed;
+      case LONG:
+      case ROLLOUT: return Long.hashCode(packed);
+      case DOUBLE: return Double.hashCode(Double.longBitsToDouble(packed));
+      default: return this.packedValues[(int) packed].hashCode();
+    }
+  }
+
+  // whether a rollout with the given threshold is enabled for a subject
+  boolean enabledFor(final long threshold, final long subjectId) {
+    return Long.compareUnsigned(OptionRegistryImpl.mix(subjectId ^ this.salt) >>> 1, threshold) < 0;
+  }
+
+  void packInto(final long @NotNull [] bits, final long value) {
+    final int word = this.bitOffset >>> 6;
+    bits[word] = (bits[word] & ~(this.bitMask << this.bitOffset)) | ((value & this.bitMask) << this.bitOffset);
+  }
+
+  int bitEnd() {
+    return this.bitOffset + Long.bitCount(this.bitMask);
   }
 
   @Override
@@ -68,7 +317,9 @@ final class OptionImpl<V> implements Option<V> {
 
   @Override
   public @Nullable V defaultValue() {
-    return this.defaultValue;
+    Defaults<V> defaults = this.defaults;
+    if (defaults == null) defaults = this.evaluateDefault();
+    return defaults.value;
   }
 
   @Override
@@ -76,16 +327,14 @@ final class OptionImpl<V> implements Option<V> {
     if (this == other) return true;
     if (other == null || getClass() != other.getClass()) return false;
     final OptionImpl<?> that = (OptionImpl<?>) other;
-    return Objects.equals(this.id, that.id)
+    return this.namespace == that.namespace
+      && Objects.equals(this.id, that.id)
       && Objects.equals(this.type, that.type);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(
-      this.id,
-      this.type
-    );
+    return this.hashCode;
   }
 
   @Override
@@ -93,7 +342,38 @@ final class OptionImpl<V> implements Option<V> {
     return this.getClass().getSimpleName() + "{"
       + "id=" + this.id + ","
       + "type=" + this.type + ","
-      + "defaultValue=" + this.defaultValue
+      + "defaultValue=" + (this.defaults != null ? String.valueOf(this.defaults.value) : "(lazy)")
       + '}';
   }
+
+  // a default value with its packed form, published without synchronization
+  private static final class Defaults<V> {
+    private final @Nullable V value;
+    private final long packed;
+
+    Defaults(final @Nullable V value, final long packed) {
+      this.value = value;
+      this.packed = packed;
+    }
+  }
+
+  // the storage of an option, tracked until the option is collected
+  private static final class Slots extends WeakReference<OptionImpl<?>> {
+    private final String id;
+    private final OptionNamespaceImpl namespace;
+    private final int ordinal;
+    private final int packedIndex;
+    private final int bitOffset;
+    private final int width;
+
+    Slots(final OptionImpl<?> option) {
+      super(option, COLLECTED);
+      this.id = option.id;
+      this.namespace = option.namespace;
+      this.ordinal = option.ordinal;
+      this.packedIndex = option.packedIndex;
+      this.bitOffset = option.bitOffset;
+      this.width = Long.bitCount(option.bitMask);
+    }
+  }
 }
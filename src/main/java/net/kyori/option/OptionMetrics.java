@@ -0,0 +1,93 @@
+/*
+ * This file is part of option, licensed under the MIT License.
+ *
+ * Copyright (c) 2023 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.option;
+
+import java.util.List;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Read counts for a single option.
+ *
+ * <p>Metrics are only collected when the {@code net.kyori.option.metrics} system property is set to {@code true} before this library is first used.
+ * When enabled, building states and resolving versions also emit Java Flight Recorder events on Java 11 and newer.</p>
+ *
+ * @since 1.1.0
+ */
+@ApiStatus.NonExtendable
+public interface OptionMetrics {
+  /**
+   * Get whether metrics are being collected.
+   *
+   * @return whether metrics are enabled
+   * @since 1.1.0
+   */
+  static boolean enabled() {
+    return OptionMetricsImpl.ENABLED;
+  }
+
+  /**
+   * Capture the current counts of every option that has been read.
+   *
+   * <p>Counts are cumulative, and are captured per option without pausing readers.</p>
+   *
+   * @return the counts, or an empty list if metrics are not enabled
+   * @since 1.1.0
+   */
+  static @NotNull List<OptionMetrics> snapshot() {
+    return OptionMetricsImpl.snapshot();
+  }
+
+  /**
+   * Get the option these counts are for.
+   *
+   * @return the option
+   * @since 1.1.0
+   */
+  @NotNull Option<?> option();
+
+  /**
+   * Get the number of times the option's value was read.
+   *
+   * @return the number of reads
+   * @since 1.1.0
+   */
+  long reads();
+
+  /**
+   * Get the number of reads that found a value set in the state.
+   *
+   * @return the number of hits
+   * @since 1.1.0
+   */
+  long hits();
+
+  /**
+   * Get the number of reads that fell back to the option's default value.
+   *
+   * @return the number of fallbacks
+   * @since 1.1.0
+   */
+  long fallbacks();
+}
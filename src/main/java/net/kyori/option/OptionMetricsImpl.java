@@ -0,0 +1,115 @@
+/*
+ * This file is part of option, licensed under the MIT License.
+ *
+ * Copyright (c) 2023 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.option;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+final class OptionMetricsImpl implements OptionMetrics {
+  // constant, so disabled instrumentation is folded away by the JIT
+  static final boolean ENABLED = Boolean.getBoolean("net.kyori.option.metrics");
+  private static final Map<Option<?>, Counters> COUNTERS = new WeakHashMap<>(); // guarded by itself
+
+  private final Option<?> option;
+  private final long hits;
+  private final long fallbacks;
+
+  private OptionMetricsImpl(final Option<?> option, final long hits, final long fallbacks) {
+    this.option = option;
+    this.hits = hits;
+    this.fallbacks = fallbacks;
+  }
+
+  // counters for a newly created option, or null if metrics are disabled
+  static @Nullable Counters counters(final Option<?> option) {
+    if (!ENABLED) return null;
+
+    final Counters counters = new Counters();
+    synchronized (COUNTERS) {
+      COUNTERS.put(option, counters);
+    }
+    return counters;
+  }
+
+  static List<OptionMetrics> snapshot() {
+    if (!ENABLED) return Collections.emptyList();
+
+    final List<Map.Entry<Option<?>, Counters>> entries;
+    synchronized (COUNTERS) {
+      entries = new ArrayList<>(COUNTERS.entrySet());
+    }
+    final List<OptionMetrics> metrics = new ArrayList<>(entries.size());
+    for (final Map.Entry<Option<?>, Counters> entry : entries) {
+      final long hits = entry.getValue().hits.sum();
+      final long fallbacks = entry.getValue().fallbacks.sum();
+      if (hits + fallbacks > 0) metrics.add(new OptionMetricsImpl(entry.getKey(), hits, fallbacks));
+    }
+    return Collections.unmodifiableList(metrics);
+  }
+
+  @Override
+  public @NotNull Option<?> option() {
+    return this.option;
+  }
+
+  @Override
+  public long reads() {
+    return this.hits + this.fallbacks;
+  }
+
+  @Override
+  public long hits() {
+    return this.hits;
+  }
+
+  @Override
+  public long fallbacks() {
+    return this.fallbacks;
+  }
+
+  @Override
+  public String toString() {
+    return this.getClass().getSimpleName() + "{" +
+      "option=" + this.option.id() +
+      ", hits=" + this.hits +
+      ", fallbacks=" + this.fallbacks +
+      '}';
+  }
+
+  // striped, so contended reads of the same option don't share a counter cell
+  static final class Counters {
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+
+    void read(final boolean hit) {
+      (hit ? this.hits : this.fallbacks).increment();
+    }
+  }
+}
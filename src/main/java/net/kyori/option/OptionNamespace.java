@@ -0,0 +1,185 @@
+/*
+ * This file is part of option, licensed under the MIT License.
+ *
+ * Copyright (c) 2023 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.option;
+
+import java.util.function.Supplier;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A scope for option ids, which can be closed to release them.
+ *
+ * <p>Option ids must be unique among the options of every open namespace. Closing a namespace releases the ids of its options so they can be registered again, such as when a plugin is reloaded. Options of a closed namespace can still be read from the states that hold them, but are not equal to options later registered with the same ids.</p>
+ *
+ * <p>Namespaces do not keep their options alive. Once an option can no longer be reached, its id is released and the storage it used in option states is reused by new options, so options from unloaded class loaders do not accumulate even if their namespace is never closed.</p>
+ *
+ * <p>The options created through {@link Option} belong to the {@link #defaultNamespace() default namespace}, which cannot be closed, and whose ids are never released.</p>
+ *
+ * @since 1.1.0
+ */
+@ApiStatus.NonExtendable
+public interface OptionNamespace extends AutoCloseable {
+  /**
+   * Create a new namespace.
+   *
+   * @param name a name describing the namespace
+   * @return the namespace
+   * @since 1.1.0
+   */
+  static @NotNull OptionNamespace optionNamespace(final @NotNull String name) {
+    return new OptionNamespaceImpl(name);
+  }
+
+  /**
+   * Get the namespace of options created through {@link Option}.
+   *
+   * @return the default namespace
+   * @since 1.1.0
+   */
+  static @NotNull OptionNamespace defaultNamespace() {
+    return OptionNamespaceImpl.DEFAULT;
+  }
+
+  /**
+   * Get the name of this namespace.
+   *
+   * @return the name
+   * @since 1.1.0
+   */
+  @NotNull String name();
+
+  /**
+   * Create an option with a boolean value type in this namespace.
+   *
+   * @param id the flag id
+   * @param defaultValue the default value
+   * @return the flag instance
+   * @throws IllegalStateException if the id is used by another open namespace, or this namespace is closed
+   * @since 1.1.0
+   */
+  @NotNull Option<Boolean> booleanOption(final @NotNull String id, final boolean defaultValue);
+
+  /**
+   * Create an option with an enum value type in this namespace.
+   *
+   * @param id the flag id
+   * @param enumClazz the value type
+   * @param defaultValue the default value
+   * @param <E> the enum type
+   * @return the flag instance
+   * @throws IllegalStateException if the id is used by another open namespace, or this namespace is closed
+   * @since 1.1.0
+   */
+  <E extends Enum<E>> @NotNull Option<E> enumOption(final @NotNull String id, final @NotNull Class<E> enumClazz, final E defaultValue);
+
+  /**
+   * Create an option with an integer value type in this namespace.
+   *
+   * @param id the flag id
+   * @param defaultValue the default value
+   * @return the flag instance
+   * @throws IllegalStateException if the id is used by another open namespace, or this namespace is closed
+   * @since 1.1.0
+   */
+  @NotNull Option<Integer> intOption(final @NotNull String id, final int defaultValue);
+
+  /**
+   * Create an option with a long value type in this namespace.
+   *
+   * @param id the flag id
+   * @param defaultValue the default value
+   * @return the flag instance
+   * @throws IllegalStateException if the id is used by another open namespace, or this namespace is closed
+   * @since 1.1.0
+   */
+  @NotNull Option<Long> longOption(final @NotNull String id, final long defaultValue);
+
+  /**
+   * Create an option with a double value type in this namespace.
+   *
+   * @param id the flag id
+   * @param defaultValue the default value
+   * @return the flag instance
+   * @throws IllegalStateException if the id is used by another open namespace, or this namespace is closed
+   * @since 1.1.0
+   */
+  @NotNull Option<Double> doubleOption(final @NotNull String id, final double defaultValue);
+
+  /**
+   * Create an option with a rollout value type in this namespace.
+   *
+   * @param id the flag id
+   * @param defaultValue the default value
+   * @return the flag instance
+   * @throws IllegalStateException if the id is used by another open namespace, or this namespace is closed
+   * @since 1.1.0
+   */
+  @NotNull Option<Rollout> rolloutOption(final @NotNull String id, final @NotNull Rollout defaultValue);
+
+  /**
+   * Create an option with a rollout value type in this namespace, and a seed choosing which subjects are enabled.
+   *
+   * @param id the flag id
+   * @param defaultValue the default value
+   * @param seed the seed
+   * @return the flag instance
+   * @throws IllegalStateException if the id is used by another open namespace, or this namespace is closed
+   * @since 1.1.0
+   */
+  @NotNull Option<Rollout> rolloutOption(final @NotNull String id, final @NotNull Rollout defaultValue, final long seed);
+
+  /**
+   * Create an option in this namespace whose default value is computed when first needed.
+   *
+   * @param id the flag id
+   * @param type the value type, which must be {@link Boolean}, {@link Integer}, {@link Long}, {@link Double}, {@link Rollout} or an enum
+   * @param defaultValue the supplier of the default value, which may only return null for enum options
+   * @param <V> the value type
+   * @return the flag instance
+   * @throws IllegalArgumentException if the value type is not supported
+   * @throws IllegalStateException if the id is used by another open namespace, or this namespace is closed
+   * @see Option#lazyOption(String, Class, Supplier)
+   * @since 1.1.0
+   */
+  <V> @NotNull Option<V> lazyOption(final @NotNull String id, final @NotNull Class<V> type, final @NotNull Supplier<? extends V> defaultValue);
+
+  /**
+   * Get whether this namespace has been closed.
+   *
+   * @return whether this namespace is closed
+   * @since 1.1.0
+   */
+  boolean closed();
+
+  /**
+   * Close this namespace, releasing the ids of its options.
+   *
+   * <p>Closing a namespace more than once has no effect.</p>
+   *
+   * @throws UnsupportedOperationException if this is the default namespace
+   * @since 1.1.0
+   */
+  @Override
+  void close();
+}
@@ -0,0 +1,114 @@
+/*
+ * This file is part of option, licensed under the MIT License.
+ *
+ * Copyright (c) 2023 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.option;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Supplier;
+import org.jetbrains.annotations.NotNull;
+
+import static java.util.Objects.requireNonNull;
+
+final class OptionNamespaceImpl implements OptionNamespace {
+  static final OptionNamespaceImpl DEFAULT = new OptionNamespaceImpl("default");
+
+  private final String name;
+  private final Set<String> ids = new HashSet<>(); // of options not yet collected; guarded by OptionImpl.class
+  private volatile boolean closed;
+
+  OptionNamespaceImpl(final @NotNull String name) {
+    this.name = requireNonNull(name, "name");
+  }
+
+  Set<String> ids() {
+    return this.ids;
+  }
+
+  @Override
+  public @NotNull String name() {
+    return this.name;
+  }
+
+  @Override
+  public @NotNull Option<Boolean> booleanOption(final @NotNull String id, final boolean defaultValue) {
+    return OptionImpl.option(this, id, Boolean.class, defaultValue);
+  }
+
+  @Override
+  public <E extends Enum<E>> @NotNull Option<E> enumOption(final @NotNull String id, final @NotNull Class<E> enumClazz, final E defaultValue) {
+    return OptionImpl.option(this, id, enumClazz, defaultValue);
+  }
+
+  @Override
+  public @NotNull Option<Integer> intOption(final @NotNull String id, final int defaultValue) {
+    return OptionImpl.option(this, id, Integer.class, defaultValue);
+  }
+
+  @Override
+  public @NotNull Option<Long> longOption(final @NotNull String id, final long defaultValue) {
+    return OptionImpl.option(this, id, Long.class, defaultValue);
+  }
+
+  @Override
+  public @NotNull Option<Double> doubleOption(final @NotNull String id, final double defaultValue) {
+    return OptionImpl.option(this, id, Double.class, defaultValue);
+  }
+
+  @Override
+  public @NotNull Option<Rollout> rolloutOption(final @NotNull String id, final @NotNull Rollout defaultValue) {
+    return this.rolloutOption(id, defaultValue, 0);
+  }
+
+  @Override
+  public @NotNull Option<Rollout> rolloutOption(final @NotNull String id, final @NotNull Rollout defaultValue, final long seed) {
+    return OptionImpl.option(this, id, Rollout.class, requireNonNull(defaultValue, "defaultValue"), seed);
+  }
+
+  @Override
+  public <V> @NotNull Option<V> lazyOption(final @NotNull String id, final @NotNull Class<V> type, final @NotNull Supplier<? extends V> defaultValue) {
+    return OptionImpl.lazyOption(this, id, type, defaultValue);
+  }
+
+  @Override
+  public boolean closed() {
+    return this.closed;
+  }
+
+  @Override
+  public void close() {
+    if (this == DEFAULT) throw new UnsupportedOperationException("The default namespace cannot be closed");
+    synchronized (OptionImpl.class) {
+      this.closed = true;
+      OptionImpl.close(this);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return this.getClass().getSimpleName() + "{" +
+      "name=" + this.name + "," +
+      "closed=" + this.closed +
+      '}';
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * This file is part of option, licensed under the MIT License.
+ *
+ * Copyright (c) 2023 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.option;
+
+import java.util.Collection;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * An index of options by id.
+ *
+ * <p>Registries are populated during startup, then {@link #freeze() frozen} into an immutable registry optimised for lookups.</p>
+ *
+ * @since 1.1.0
+ */
+@ApiStatus.NonExtendable
+public interface OptionRegistry {
+  /**
+   * Create a new mutable registry.
+   *
+   * @return the registry
+   * @since 1.1.0
+   */
+  static @NotNull OptionRegistry optionRegistry() {
+    return new OptionRegistryImpl();
+  }
+
+  /**
+   * Compute the hash used to look up an id.
+   *
+   * <p>This is stable for the lifetime of a JVM, and can be computed once for ids that are looked up repeatedly.</p>
+   *
+   * @param id the option id
+   * @return the hash for {@link #option(String, long)}
+   * @since 1.1.0
+   */
+  static long hash(final @NotNull String id) {
+    return OptionRegistryImpl.hash(id);
+  }
+
+  /**
+   * Add an option to this registry.
+   *
+   * @param option the option to add
+   * @return this registry
+   * @throws IllegalStateException if the registry is frozen, or another option with the same id is registered
+   * @since 1.1.0
+   */
+  @NotNull OptionRegistry register(final @NotNull Option<?> option);
+
+  /**
+   * Get the option registered with a certain id.
+   *
+   * @param id the option id
+   * @return the option, if any
+   * @since 1.1.0
+   */
+  @Nullable Option<?> option(final @NotNull String id);
+
+  /**
+   * Get the option registered with a certain id, using a precomputed hash.
+   *
+   * @param id the option id
+   * @param hash the {@link #hash(String) hash} of the id
+   * @return the option, if any
+   * @since 1.1.0
+   */
+  @Nullable Option<?> option(final @NotNull String id, final long hash);
+
+  /**
+   * Get every registered option.
+   *
+   * <p>Frozen registries return options ordered by id.</p>
+   *
+   * @return an unmodifiable view of the registered options
+   * @since 1.1.0
+   */
+  @NotNull Collection<Option<?>> options();
+
+  /**
+   * Get whether this registry is frozen, and rejects new options.
+   *
+   * @return whether this registry is frozen
+   * @since 1.1.0
+   */
+  boolean frozen();
+
+  /**
+   * Create a frozen copy of this registry.
+   *
+   * <p>Frozen registries index their ids with a collision-free hash table, so lookups never probe and never allocate, and they are safe to read from any thread without synchronization.</p>
+   *
+   * @return the frozen registry, or this registry if already frozen
+   * @throws IllegalStateException if two registered ids have the same {@link #hash(String) hash}
+   * @since 1.1.0
+   */
+  @NotNull OptionRegistry freeze();
+}
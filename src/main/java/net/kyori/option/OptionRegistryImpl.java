@@ -0,0 +1,258 @@
+/*
+ * This file is part of option, licensed under the MIT License.
+ *
+ * Copyright (c) 2023 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.option;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import static java.util.Objects.requireNonNull;
+
+final class OptionRegistryImpl implements OptionRegistry {
+  private final Map<String, Option<?>> options = new ConcurrentHashMap<>();
+
+  static long hash(final String id) {
+    long hash = 0xcbf29ce484222325L; // FNV-1a, finished with a murmur3 mix
+    for (int i = 0, length = id.length(); i < length; i++) {
+      hash = (hash ^ id.charAt(i)) * 0x100000001b3L;
+    }
+    return mix(hash);
+  }
+
+  static long mix(final long value) {
+    final long first = (value ^ (value >>> 33)) * 0xff51afd7ed558ccdL;
+    final long second = (first ^ (first >>> 33)) * 0xc4ceb9fe1a85ec53L;
+    return second ^ (second >>> 33);
+  }
+
+  @Override
+  public @NotNull OptionRegistry register(final @NotNull Option<?> option) {
+    final Option<?> existing = this.options.putIfAbsent(requireNonNull(option, "option").id(), option);
+    if (existing != null && existing != option) {
+      throw new IllegalStateException("Key " + option.id() + " is already registered to " + existing);
+    }
+    return this;
+  }
+
+  @Override
+  public @Nullable Option<?> option(final @NotNull String id) {
+    return this.options.get(requireNonNull(id, "id"));
+  }
+
+  @Override
+  public @Nullable Option<?> option(final @NotNull String id, final long hash) {
+    return this.option(id);
+  }
+
+  @Override
+  public @NotNull Collection<Option<?>> options() {
+    return Collections.unmodifiableCollection(this.options.values());
+  }
+
+  @Override
+  public boolean frozen() {
+    return false;
+  }
+
+  @Override
+  public @NotNull OptionRegistry freeze() {
+    final Option<?>[] options = this.options.values().toArray(new Option<?>[0]);
+    Arrays.sort(options, Comparator.comparing(Option::id));
+    return new Frozen(options);
+  }
+
+  @Override
+  public String toString() {
+    return this.getClass().getSimpleName() + "{" +
+      "options=" + this.options.keySet() +
+      '}';
+  }
+
+  // a hash-and-displace perfect hash table: each id hashes to a bucket, and each bucket has a seed placing all of its ids in free slots
+  static final class Frozen implements OptionRegistry {
+    private static final int IDS_PER_BUCKET = 4;
+    private static final int MAX_ATTEMPTS_PER_BUCKET = 1 << 16;
+    private static final long SEED_MULTIPLIER = 0x9e3779b97f4a7c15L;
+
+    private final Option<?>[] options; // ordered by id
+    private final Option<?>[] table;
+    private final int[] seeds;
+    private final int slotMask;
+    private final int bucketMask;
+
+    Frozen(final Option<?>[] options) {
+      this(options, hashes(options));
+    }
+
+    Frozen(final Option<?>[] options, final long[] hashes) {
+      this.options = options;
+      checkDistinct(options, hashes); // no seed separates equal hashes, so placing them would grow the table without end
+
+      int slots = Integer.highestOneBit(Math.max(1, options.length + (options.length >> 2)) * 2 - 1);
+      while (true) {
+        final int buckets = Integer.highestOneBit(Math.max(1, options.length / IDS_PER_BUCKET) * 2 - 1);
+        final Option<?>[] table = new Option<?>[slots];
+        final int[] seeds = new int[buckets];
+        if (place(options, hashes, table, seeds)) {
+          this.table = table;
+          this.seeds = seeds;
+          this.slotMask = slots - 1;
+          this.bucketMask = buckets - 1;
+          return;
+        }
+        if (slots >= 1 << 30) throw new IllegalStateException("Unable to build a perfect hash table for " + options.length + " options");
+        slots <<= 1;
+      }
+    }
+
+    private static long[] hashes(final Option<?>[] options) {
+      final long[] hashes = new long[options.length];
+      for (int i = 0; i < options.length; i++) {
+        hashes[i] = hash(options[i].id());
+      }
+      return hashes;
+    }
+
+    private static void checkDistinct(final Option<?>[] options, final long[] hashes) {
+      final long[] sorted = hashes.clone();
+      Arrays.sort(sorted);
+      for (int i = 1; i < sorted.length; i++) {
+        if (sorted[i] != sorted[i - 1]) continue;
+
+        final StringBuilder ids = new StringBuilder();
+        for (int j = 0; j < hashes.length; j++) {
+          if (hashes[j] == sorted[i]) ids.append(ids.length() == 0 ? "" : " and ").append(options[j].id());
+        }
+        throw new IllegalStateException("Options " + ids + " have the same id hash, so a frozen registry cannot tell them apart");
+      }
+    }
+
+    private static int bucket(final long hash, final int buckets) {
+      return (int) (hash >>> 32) & (buckets - 1);
+    }
+
+    private static int slot(final long hash, final int seed, final int mask) {
+      return (int) mix(hash + seed * SEED_MULTIPLIER) & mask;
+    }
+
+    private static boolean place(final Option<?>[] options, final long[] hashes, final Option<?>[] table, final int[] seeds) {
+      final int buckets = seeds.length;
+      final int[][] members = new int[buckets][];
+      final int[] sizes = new int[buckets];
+      int largest = 0;
+      for (final long hash : hashes) {
+        largest = Math.max(largest, ++sizes[bucket(hash, buckets)]);
+      }
+      for (int i = 0; i < buckets; i++) {
+        members[i] = new int[sizes[i]];
+        sizes[i] = 0;
+      }
+      for (int i = 0; i < hashes.length; i++) {
+        final int bucket = bucket(hashes[i], buckets);
+        members[bucket][sizes[bucket]++] = i;
+      }
+
+      // the largest buckets are the hardest to place, so they go first while the table is emptiest
+      final Integer[] order = new Integer[buckets];
+      for (int i = 0; i < buckets; i++) {
+        order[i] = i;
+      }
+      Arrays.sort(order, Comparator.comparingInt((Integer bucket) -> sizes[bucket]).reversed());
+
+      final int mask = table.length - 1;
+      final int[] placed = new int[largest];
+      for (final int bucket : order) {
+        final int[] ids = members[bucket];
+        if (ids.length == 0) break;
+
+        boolean found = false;
+        for (int seed = 0; seed < MAX_ATTEMPTS_PER_BUCKET && !found; seed++) {
+          found = true;
+          int count = 0;
+          for (final int id : ids) {
+            final int slot = slot(hashes[id], seed, mask);
+            if (table[slot] != null) {
+              found = false;
+              break;
+            }
+            table[slot] = options[id];
+            placed[count++] = slot;
+          }
+          if (found) {
+            seeds[bucket] = seed;
+          } else {
+            for (int i = 0; i < count; i++) {
+              table[placed[i]] = null;
+            }
+          }
+        }
+        if (!found) return false;
+      }
+      return true;
+    }
+
+    @Override
+    public @NotNull OptionRegistry register(final @NotNull Option<?> option) {
+      throw new IllegalStateException("Cannot register " + option + ", the registry is frozen");
+    }
+
+    @Override
+    public @Nullable Option<?> option(final @NotNull String id) {
+      return this.option(id, hash(id));
+    }
+
+    @Override
+    public @Nullable Option<?> option(final @NotNull String id, final long hash) {
+      final Option<?> option = this.table[slot(hash, this.seeds[(int) (hash >>> 32) & this.bucketMask], this.slotMask)];
+      return option != null && option.id().equals(id) ? option : null;
+    }
+
+    @Override
+    public @NotNull Collection<Option<?>> options() {
+      return Collections.unmodifiableList(Arrays.asList(this.options));
+    }
+
+    @Override
+    public boolean frozen() {
+      return true;
+    }
+
+    @Override
+    public @NotNull OptionRegistry freeze() {
+      return this;
+    }
+
+    @Override
+    public String toString() {
+      return this.getClass().getSimpleName() + "{" +
+        "options=" + Arrays.toString(this.options) +
+        '}';
+    }
+  }
+}
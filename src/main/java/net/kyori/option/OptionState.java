@@ -24,9 +24,16 @@
 package net.kyori.option;
 
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import static java.util.Objects.requireNonNull;
 
 /**
  * Collection of feature flags.
@@ -55,6 +62,51 @@ public interface OptionState {
     return new OptionStateImpl.BuilderImpl();
   }
 
+  /**
+   * Create a state that reads values from {@code overrides}, falling back to {@code base} for options it does not set.
+   *
+   * <p>This takes time proportional to the size of {@code overrides}, rather than copying every value of {@code base}.
+   * Once overlays are stacked deeper than the {@code net.kyori.option.maxOverlayDepth} system property (8 by default), the chain is flattened into a single state to keep lookups fast.</p>
+   *
+   * <p>Live states are captured as their current snapshot, and versioned states as the values at the version they view.</p>
+   *
+   * @param base the state providing values that are not overridden
+   * @param overrides the values to apply on top of {@code base}
+   * @return the combined state
+   * @since 1.1.0
+   */
+  static @NotNull OptionState overlay(final @NotNull OptionState base, final @NotNull OptionState overrides) {
+    return OptionStateImpl.Overlay.of(
+      OptionStateImpl.flat(requireNonNull(base, "base")),
+      OptionStateImpl.flat(requireNonNull(overrides, "overrides"))
+    );
+  }
+
+  /**
+   * Create a live option state, notifying listeners on the thread that changed the state.
+   *
+   * @param initial the initial snapshot
+   * @return the live state
+   * @since 1.1.0
+   */
+  static @NotNull LiveOptionState live(final @NotNull OptionState initial) {
+    return new LiveOptionStateImpl(initial, Runnable::run);
+  }
+
+  /**
+   * Create a live option state.
+   *
+   * <p>Listeners are notified by a task submitted to {@code notifier}. Only one such task runs at a time, and it keeps delivering changes made while it runs, so bursts of updates result in few notifications.</p>
+   *
+   * @param initial the initial snapshot
+   * @param notifier the executor to notify listeners on
+   * @return the live state
+   * @since 1.1.0
+   */
+  static @NotNull LiveOptionState live(final @NotNull OptionState initial, final @NotNull Executor notifier) {
+    return new LiveOptionStateImpl(initial, notifier);
+  }
+
   /**
    * Create a builder for a versioned option state.
    *
@@ -65,6 +117,17 @@ public interface OptionState {
     return new OptionStateImpl.VersionedBuilderImpl();
   }
 
+  /**
+   * Create a builder for option states versioned along several dimensions, such as a protocol version and a client edition.
+   *
+   * @param dimensions the number of dimensions, at least one
+   * @return the builder
+   * @since 1.1.0
+   */
+  static @NotNull MultiVersionedBuilder multiVersionedOptionState(final int dimensions) {
+    return new MultiVersionedImpl.BuilderImpl(dimensions);
+  }
+
 
   /**
    * Get whether this state contains a certain option at all.
@@ -85,6 +148,216 @@ public interface OptionState {
    */
   <V> V value(final @NotNull Option<V> option);
 
+  /**
+   * Get the value set for a certain boolean option, without boxing.
+   *
+   * @param option the option to query
+   * @return the option value
+   * @since 1.1.0
+   */
+  default boolean booleanValue(final @NotNull Option<Boolean> option) {
+    return this.value(option);
+  }
+
+  /**
+   * Get the value set for a certain integer option, without boxing.
+   *
+   * @param option the option to query
+   * @return the option value
+   * @since 1.1.0
+   */
+  default int intValue(final @NotNull Option<Integer> option) {
+    return this.value(option);
+  }
+
+  /**
+   * Get the value set for a certain long option, without boxing.
+   *
+   * @param option the option to query
+   * @return the option value
+   * @since 1.1.0
+   */
+  default long longValue(final @NotNull Option<Long> option) {
+    return this.value(option);
+  }
+
+  /**
+   * Get the value set for a certain double option, without boxing.
+   *
+   * @param option the option to query
+   * @return the option value
+   * @since 1.1.0
+   */
+  default double doubleValue(final @NotNull Option<Double> option) {
+    return this.value(option);
+  }
+
+  /**
+   * Get whether a rollout option is enabled for a subject.
+   *
+   * <p>A subject is enabled when the hash of its id falls within the share of the rollout value. Immutable states evaluate this without allocating.</p>
+   *
+   * @param option the rollout option
+   * @param subjectId the subject id
+   * @return whether the rollout is enabled for the subject
+   * @since 1.1.0
+   */
+  default boolean enabledFor(final @NotNull Option<Rollout> option, final long subjectId) {
+    return ((OptionImpl<?>) requireNonNull(option, "flag")).enabledFor(((RolloutImpl) this.value(option)).threshold(), subjectId);
+  }
+
+  /**
+   * Get the value of a derived option.
+   *
+   * <p>Immutable states compute each derived value once, on first read.</p>
+   *
+   * @param option the derived option
+   * @param <V> the value type
+   * @return the derived value
+   * @since 1.1.0
+   */
+  default <V> @NotNull V value(final @NotNull DerivedOption<V> option) {
+    return ((DerivedOptionImpl<V>) requireNonNull(option, "option")).compute(this);
+  }
+
+  /**
+   * Get the canonical instance of this state.
+   *
+   * <p>Equal states return the same instance for as long as it is reachable, so interned states can be compared by identity.</p>
+   *
+   * @return the interned state
+   * @since 1.1.0
+   */
+  @NotNull OptionState interned();
+
+  /**
+   * Get the changes that turn this state into {@code other}.
+   *
+   * <p>Only explicitly set values are compared, so an option set to its default value in one state and unset in the other is still reported as changed.</p>
+   *
+   * @param other the state to compare against
+   * @return the changed options
+   * @since 1.1.0
+   */
+  default @NotNull Diff diff(final @NotNull OptionState other) {
+    return OptionStateImpl.flat(this).diff(OptionStateImpl.flat(requireNonNull(other, "other")));
+  }
+
+  /**
+   * Call an action with every option that has a value in this state, and its value.
+   *
+   * <p>Default values of unset options are not included. The values of a {@link Versioned} state are those of its current version, and the values of each version alone can be read from its {@link Versioned#childStates() child states}.</p>
+   *
+   * @param action the action
+   * @since 1.1.0
+   */
+  default void forEach(final @NotNull BiConsumer<? super Option<?>, Object> action) {
+    OptionStateImpl.flat(this).forEach(action);
+  }
+
+  /**
+   * Get a stream of every option that has a value in this state, with its value.
+   *
+   * <p>The stream reads the storage of the state in place. Its spliterator is {@link Spliterator#IMMUTABLE immutable}, and {@link Spliterator#SIZED sized} for most states, splitting evenly for use in parallel streams.</p>
+   *
+   * @return the stream of entries
+   * @since 1.1.0
+   */
+  default @NotNull Stream<Entry<?>> stream() {
+    return OptionStateImpl.flat(this).stream();
+  }
+
+  /**
+   * An option and the value set for it in a state.
+   *
+   * @param <V> the value type
+   * @since 1.1.0
+   */
+  @ApiStatus.NonExtendable
+  interface Entry<V> {
+    /**
+     * Get the option.
+     *
+     * @return the option
+     * @since 1.1.0
+     */
+    @NotNull Option<V> option();
+
+    /**
+     * Get the value set for the option.
+     *
+     * @return the value
+     * @since 1.1.0
+     */
+    @NotNull V value();
+  }
+
+  /**
+   * A set of changes between two option states.
+   *
+   * @since 1.1.0
+   */
+  @ApiStatus.NonExtendable
+  interface Diff extends Iterable<Diff.Change<?>> {
+    /**
+     * Get the number of changed options.
+     *
+     * @return the number of changes
+     * @since 1.1.0
+     */
+    int size();
+
+    /**
+     * Get whether the two states hold the same values.
+     *
+     * @return whether there are no changes
+     * @since 1.1.0
+     */
+    boolean isEmpty();
+
+    /**
+     * Get whether the value of a certain option differs between the two states.
+     *
+     * @param option the option to check
+     * @return whether the option changed
+     * @since 1.1.0
+     */
+    boolean changed(final @NotNull Option<?> option);
+
+    /**
+     * A change to a single option.
+     *
+     * @param <V> the value type
+     * @since 1.1.0
+     */
+    @ApiStatus.NonExtendable
+    interface Change<V> {
+      /**
+       * Get the changed option.
+       *
+       * @return the option
+       * @since 1.1.0
+       */
+      @NotNull Option<V> option();
+
+      /**
+       * Get the value set in the original state.
+       *
+       * @return the old value, or {@code null} if the option was added
+       * @since 1.1.0
+       */
+      @Nullable V oldValue();
+
+      /**
+       * Get the value set in the compared state.
+       *
+       * @return the new value, or {@code null} if the option was removed
+       * @since 1.1.0
+       */
+      @Nullable V newValue();
+    }
+  }
+
   /**
    * A composite option set.
    *
@@ -110,6 +383,21 @@ public interface OptionState {
      * @since 1.0.0
      */
     @NotNull Versioned at(final int version);
+
+    /**
+     * Get the changes that turn the view at version {@code from} into the view at version {@code to}.
+     *
+     * <p>This only inspects the options set by versions between the two, rather than comparing every value.</p>
+     *
+     * @param from the version to compare from
+     * @param to the version to compare to
+     * @return the changed options
+     * @since 1.1.0
+     */
+    @NotNull Diff changesBetween(final int from, final int to);
+
+    @Override
+    @NotNull Versioned interned();
   }
 
   /**
@@ -130,6 +418,36 @@ public interface OptionState {
      */
     <V> @NotNull Builder value(final @NotNull Option<V> option, final @NotNull V value);
 
+    /**
+     * Set the value for a specific integer option, without boxing.
+     *
+     * @param option the option to set the value for
+     * @param value the value
+     * @return this builder
+     * @since 1.1.0
+     */
+    @NotNull Builder intValue(final @NotNull Option<Integer> option, final int value);
+
+    /**
+     * Set the value for a specific long option, without boxing.
+     *
+     * @param option the option to set the value for
+     * @param value the value
+     * @return this builder
+     * @since 1.1.0
+     */
+    @NotNull Builder longValue(final @NotNull Option<Long> option, final long value);
+
+    /**
+     * Set the value for a specific double option, without boxing.
+     *
+     * @param option the option to set the value for
+     * @param value the value
+     * @return this builder
+     * @since 1.1.0
+     */
+    @NotNull Builder doubleValue(final @NotNull Option<Double> option, final double value);
+
     /**
      * Apply all values from the existing option state.
      *
@@ -139,6 +457,34 @@ public interface OptionState {
      */
     @NotNull Builder values(final @NotNull OptionState existing);
 
+    /**
+     * Apply all values from a flat string source, like system properties or environment variables.
+     *
+     * <p>Entries whose key or value is not a string, and keys the codecs do not map to an option, are skipped.
+     * Unmapped keys starting with a non-empty {@link OptionCodecs.Builder#prefix(String) prefix} are failures instead.</p>
+     *
+     * @param source the source
+     * @param codecs the codecs to read the source with
+     * @return this builder
+     * @throws IllegalArgumentException if any entry could not be read, after applying every valid entry
+     * @since 1.1.0
+     */
+    @NotNull Builder values(final @NotNull Map<?, ?> source, final @NotNull OptionCodecs codecs);
+
+    /**
+     * Apply all values from a flat string source, like system properties or environment variables, collecting failures.
+     *
+     * <p>Entries whose key or value is not a string, and keys the codecs do not map to an option, are skipped.
+     * Unmapped keys starting with a non-empty {@link OptionCodecs.Builder#prefix(String) prefix} are failures instead.</p>
+     *
+     * @param source the source
+     * @param codecs the codecs to read the source with
+     * @param failures a receiver for entries that could not be read
+     * @return this builder
+     * @since 1.1.0
+     */
+    @NotNull Builder values(final @NotNull Map<?, ?> source, final @NotNull OptionCodecs codecs, final @NotNull Consumer<? super OptionCodecs.Failure> failures);
+
     /**
      * Create a completed option state.
      *
@@ -148,6 +494,75 @@ public interface OptionState {
     @NotNull OptionState build();
   }
 
+  /**
+   * Option states versioned along several ordered dimensions.
+   *
+   * <p>Each layer is declared at a coordinate, and applies to every coordinate at or above it in all dimensions. The state at a coordinate combines the layers that apply to it in order of their coordinates, compared from the first dimension to the last, so later layers override earlier ones.</p>
+   *
+   * <p>The states of every combination of declared coordinates are computed when built, sharing storage with their neighbours, so a lookup is a binary search per dimension followed by an array access.</p>
+   *
+   * @since 1.1.0
+   */
+  @ApiStatus.NonExtendable
+  interface MultiVersioned {
+    /**
+     * Get the number of dimensions.
+     *
+     * @return the number of dimensions
+     * @since 1.1.0
+     */
+    int dimensions();
+
+    /**
+     * Get the state at a coordinate of a two-dimensional state.
+     *
+     * @param first the coordinate in the first dimension
+     * @param second the coordinate in the second dimension
+     * @return the state
+     * @throws IllegalArgumentException if this state does not have two dimensions
+     * @since 1.1.0
+     */
+    @NotNull OptionState at(final int first, final int second);
+
+    /**
+     * Get the state at a coordinate.
+     *
+     * @param coordinates the coordinate in each dimension
+     * @return the state
+     * @throws IllegalArgumentException if the number of coordinates does not match the number of dimensions
+     * @since 1.1.0
+     */
+    @NotNull OptionState at(final int @NotNull... coordinates);
+  }
+
+  /**
+   * A builder for states versioned along several dimensions.
+   *
+   * @since 1.1.0
+   */
+  @ApiStatus.NonExtendable
+  interface MultiVersionedBuilder {
+    /**
+     * Register options for a coordinate.
+     *
+     * @param coordinates the coordinate in each dimension
+     * @param versionBuilder the builder that will receive options
+     * @return this builder
+     * @throws IllegalArgumentException if the number of coordinates does not match the number of dimensions
+     * @since 1.1.0
+     */
+    @NotNull MultiVersionedBuilder version(final int @NotNull [] coordinates, final @NotNull Consumer<Builder> versionBuilder);
+
+    /**
+     * Create a completed multi-versioned option state.
+     *
+     * @return the built state
+     * @throws IllegalStateException if the number of combinations of declared coordinates exceeds the maximum array size
+     * @since 1.1.0
+     */
+    @NotNull MultiVersioned build();
+  }
+
   /**
    * A builder for versioned option states.
    *
@@ -0,0 +1,190 @@
+/*
+ * This file is part of option, licensed under the MIT License.
+ *
+ * Copyright (c) 2023 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.option;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import static java.util.Objects.requireNonNull;
+
+final class OptionStateDiffImpl implements OptionState.Diff {
+  static final OptionStateDiffImpl EMPTY = new OptionStateDiffImpl(new ChangeImpl<?>[0]);
+
+  private final ChangeImpl<?>[] changes; // ordered by option ordinal
+
+  private OptionStateDiffImpl(final ChangeImpl<?>[] changes) {
+    this.changes = changes;
+  }
+
+  @Override
+  public int size() {
+    return this.changes.length;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return this.changes.length == 0;
+  }
+
+  @Override
+  public boolean changed(final @NotNull Option<?> option) {
+    final int ordinal = OptionImpl.ordinal(requireNonNull(option, "flag"));
+    int low = 0;
+    int high = this.changes.length - 1;
+    while (low <= high) {
+      final int mid = (low + high) >>> 1;
+      final int midOrdinal = OptionImpl.ordinal(this.changes[mid].option);
+      if (midOrdinal < ordinal) {
+        low = mid + 1;
+      } else if (midOrdinal > ordinal) {
+        high = mid - 1;
+      } else {
+        return this.changes[mid].option == option; // live options never share an ordinal
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public @NotNull Iterator<Change<?>> iterator() {
+    return new Iterator<Change<?>>() {
+      private int next;
+
+      @Override
+      public boolean hasNext() {
+        return this.next < OptionStateDiffImpl.this.changes.length;
+      }
+
+      @Override
+      public Change<?> next() {
+        if (!this.hasNext()) throw new NoSuchElementException();
+        return OptionStateDiffImpl.this.changes[this.next++];
+      }
+    };
+  }
+
+  @Override
+  public boolean equals(final @Nullable Object other) {
+    if (this == other) return true;
+    if (other == null || getClass() != other.getClass()) return false;
+    final OptionStateDiffImpl that = (OptionStateDiffImpl) other;
+    return Arrays.equals(this.changes, that.changes);
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(this.changes);
+  }
+
+  @Override
+  public String toString() {
+    return this.getClass().getSimpleName() + "{" +
+      "changes=" + Arrays.toString(this.changes) +
+      '}';
+  }
+
+  // collects options whose values differ, ignoring those that compare equal
+  static final class Builder {
+    private ChangeImpl<?>[] changes = new ChangeImpl<?>[8];
+    private int size;
+    private boolean sorted = true;
+
+    void compare(final Option<?> option, final @Nullable Object oldValue, final @Nullable Object newValue) {
+      if (Objects.equals(oldValue, newValue)) return;
+
+      if (this.size == this.changes.length) this.changes = Arrays.copyOf(this.changes, this.size << 1);
+      if (this.size > 0 && OptionImpl.ordinal(this.changes[this.size - 1].option) > OptionImpl.ordinal(option)) this.sorted = false;
+      this.changes[this.size++] = new ChangeImpl<>(option, oldValue, newValue);
+    }
+
+    OptionStateDiffImpl build() {
+      if (this.size == 0) return EMPTY;
+
+      final ChangeImpl<?>[] changes = Arrays.copyOf(this.changes, this.size);
+      if (!this.sorted) Arrays.sort(changes, Comparator.comparingInt(change -> OptionImpl.ordinal(change.option)));
+      return new OptionStateDiffImpl(changes);
+    }
+  }
+
+  static final class ChangeImpl<V> implements Change<V> {
+    private final Option<V> option;
+    private final @Nullable V oldValue;
+    private final @Nullable V newValue;
+
+    @SuppressWarnings("unchecked")
+    ChangeImpl(final Option<V> option, final @Nullable Object oldValue, final @Nullable Object newValue) {
+      this.option = option;
+      this.oldValue = (V) oldValue;
+      this.newValue = (V) newValue;
+    }
+
+    @Override
+    public @NotNull Option<V> option() {
+      return this.option;
+    }
+
+    @Override
+    public @Nullable V oldValue() {
+      return this.oldValue;
+    }
+
+    @Override
+    public @Nullable V newValue() {
+      return this.newValue;
+    }
+
+    @Override
+    public boolean equals(final @Nullable Object other) {
+      if (this == other) return true;
+      if (other == null || getClass() != other.getClass()) return false;
+      final ChangeImpl<?> that = (ChangeImpl<?>) other;
+      return this.option.equals(that.option)
+        && Objects.equals(this.oldValue, that.oldValue)
+        && Objects.equals(this.newValue, that.newValue);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(
+        this.option,
+        this.oldValue,
+        this.newValue
+      );
+    }
+
+    @Override
+    public String toString() {
+      return this.getClass().getSimpleName() + "{" +
+        "option=" + this.option.id() +
+        ", oldValue=" + this.oldValue +
+        ", newValue=" + this.newValue +
+        '}';
+    }
+  }
+}
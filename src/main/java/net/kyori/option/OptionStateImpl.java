@@ -23,66 +23,834 @@
  */
 package net.kyori.option;
 
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Objects;
+import java.util.Set;
 import java.util.SortedMap;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import static java.util.Objects.requireNonNull;
 
-final class OptionStateImpl implements OptionState {
-  static final OptionState EMPTY = new OptionStateImpl(new IdentityHashMap<>());
-  private final IdentityHashMap<Option<?>, Object> values;
+abstract class OptionStateImpl implements OptionState {
+  static final OptionStateImpl EMPTY = new Dense(new Option<?>[0], new Object[0], new long[0], new long[0], 0);
+  private static final Map<OptionState, WeakReference<OptionState>> INTERNED = new WeakHashMap<>(); // guarded by itself
+  // dense storage is used while it needs no more than this many slots per stored value (or the minimum length below)
+  private static final int MAX_SLOTS_PER_VALUE = 4;
+  private static final int MIN_DENSE_LENGTH = 64;
+  // overlay chains deeper than this are flattened, bounding the number of layers a lookup visits
+  private static final int MAX_OVERLAY_DEPTH = Math.max(1, Integer.getInteger("net.kyori.option.maxOverlayDepth", 8));
+  static final int OPTIONS_CHARACTERISTICS = Spliterator.IMMUTABLE | Spliterator.NONNULL | Spliterator.DISTINCT | Spliterator.ORDERED;
 
-  OptionStateImpl(final IdentityHashMap<Option<?>, Object> values) {
-    this.values = new IdentityHashMap<>(values);
+  private static final AtomicReferenceFieldUpdater<OptionStateImpl, Derived> DERIVED = AtomicReferenceFieldUpdater.newUpdater(OptionStateImpl.class, Derived.class, "derived");
+
+  private final int hash; // computed by whoever builds the state, see entryHash
+  private boolean interned; // benign race, only used to skip value comparisons
+  private volatile @Nullable Derived derived; // created on the first derived read, so other states pay nothing
+
+  OptionStateImpl(final int hash) {
+    this.hash = hash;
+  }
+
+  abstract int size();
+
+  abstract @Nullable Object raw(final @NotNull Option<?> option); // stored value without default fallback
+
+  abstract long packedValue(final @NotNull OptionImpl<?> option); // packed form of a packed option's value, or of its default if unset
+
+  abstract boolean allOptions(final @NotNull Predicate<? super Option<?>> predicate); // options with a value, stops at the first mismatch
+
+  abstract @NotNull Spliterator<Option<?>> options(); // options with a value, reading the storage in place
+
+  // stops at the first mismatch
+  boolean allMatch(final @NotNull BiPredicate<? super Option<?>, Object> predicate) {
+    return this.allOptions(option -> predicate.test(option, this.raw(option)));
+  }
+
+  @Override
+  public void forEach(final @NotNull BiConsumer<? super Option<?>, Object> action) {
+    requireNonNull(action, "action");
+    this.allMatch((option, value) -> {
+      action.accept(option, value);
+      return true;
+    });
+  }
+
+  @Override
+  public @NotNull Stream<Entry<?>> stream() {
+    return StreamSupport.stream(new Entries(this, this.options()), false);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <V> @NotNull V value(final @NotNull DerivedOption<V> option) {
+    final DerivedOptionImpl<V> impl = (DerivedOptionImpl<V>) requireNonNull(option, "option");
+    Derived derived = this.derived;
+    if (derived != null) {
+      final V value = derived.get(impl);
+      if (value != null) return value;
+    } else {
+      DERIVED.compareAndSet(this, null, new Derived());
+      derived = this.derived;
+    }
+    return derived.compute(this, impl);
+  }
+
+  static boolean present(final long[] present, final int packedIndex) {
+    final int word = packedIndex >>> 6;
+    return word < present.length && (present[word] & (1L << packedIndex)) != 0;
+  }
+
+  static @NotNull OptionStateImpl flat(final @NotNull OptionState state) {
+    if (state instanceof OptionStateImpl) {
+      return (OptionStateImpl) state;
+    } else if (state instanceof VersionedImpl) {
+      return ((VersionedImpl) state).filtered;
+    } else if (state instanceof LiveOptionStateImpl) {
+      return flat(((LiveOptionStateImpl) state).snapshot());
+    } else if (state instanceof MappedOptionStateImpl) {
+      return flat(((MappedOptionStateImpl) state).snapshot());
+    } else {
+      throw new IllegalArgumentException("existing set " + state + " is of an unknown implementation type");
+    }
+  }
+
+  static int entryHash(final Option<?> option, final Object value) {
+    return option.hashCode() ^ value.hashCode();
+  }
+
+  static int entryHash(final OptionImpl<?> option, final long packed) {
+    return option.hashCode() ^ option.packedHash(packed);
+  }
+
+  @SuppressWarnings("unchecked")
+  static <S extends OptionState> @NotNull S intern(final @NotNull S state) {
+    synchronized (INTERNED) {
+      final WeakReference<OptionState> existing = INTERNED.get(state);
+      final OptionState canonical = existing == null ? null : existing.get();
+      if (canonical != null) return (S) canonical;
+
+      INTERNED.put(state, new WeakReference<>(state));
+      return state;
+    }
+  }
+
+  // the changes turning this state into the other one
+  OptionStateDiffImpl diff(final @NotNull OptionStateImpl other) {
+    if (this == other) return OptionStateDiffImpl.EMPTY;
+
+    final OptionStateDiffImpl.Builder diff = new OptionStateDiffImpl.Builder();
+    this.allMatch((option, value) -> {
+      diff.compare(option, value, other.raw(option));
+      return true;
+    });
+    other.allMatch((option, value) -> {
+      if (this.raw(option) == null) diff.compare(option, null, value);
+      return true;
+    });
+    return diff.build();
+  }
+
+  @Override
+  public final boolean booleanValue(final @NotNull Option<Boolean> option) {
+    return this.readPacked(option) != 0;
+  }
+
+  @Override
+  public final int intValue(final @NotNull Option<Integer> option) {
+    return (int) this.readPacked(option);
+  }
+
+  @Override
+  public final long longValue(final @NotNull Option<Long> option) {
+    return this.readPacked(option);
+  }
+
+  @Override
+  public final double doubleValue(final @NotNull Option<Double> option) {
+    return Double.longBitsToDouble(this.readPacked(option));
   }
 
   @Override
-  public boolean has(final @NotNull Option<?> option) {
-    return this.values.containsKey(requireNonNull(option, "flag"));
+  public final boolean enabledFor(final @NotNull Option<Rollout> option, final long subjectId) {
+    return ((OptionImpl<?>) option).enabledFor(this.readPacked(option), subjectId);
+  }
+
+  private long readPacked(final @NotNull Option<?> option) {
+    final OptionImpl<?> impl = (OptionImpl<?>) requireNonNull(option, "flag");
+    if (OptionMetricsImpl.ENABLED) OptionImpl.recordRead(impl, this.has(impl));
+    return this.packedValue(impl);
   }
 
   @Override
-  public <V> V value(final @NotNull Option<V> option) {
-    final V value = option.type().cast(this.values.get(requireNonNull(option, "flag")));
-    return value == null ? option.defaultValue() : value;
+  public @NotNull OptionState interned() {
+    if (this.interned) return this;
+
+    final OptionStateImpl canonical = intern(this);
+    canonical.interned = true;
+    return canonical;
   }
 
   @Override
-  public boolean equals(final @Nullable Object other) {
+  public final boolean equals(final @Nullable Object other) {
     if (this == other) return true;
-    if (other == null || getClass() != other.getClass()) return false;
+    if (!(other instanceof OptionStateImpl)) return false;
     final OptionStateImpl that = (OptionStateImpl) other;
-    return Objects.equals(this.values, that.values);
+    if (this.interned && that.interned) return false; // equal interned states are the same instance
+    return this.hash == that.hash
+      && this.size() == that.size()
+      && this.allMatch((option, value) -> value.equals(that.raw(option)));
   }
 
   @Override
-  public int hashCode() {
-    return Objects.hash(this.values);
+  public final int hashCode() {
+    return this.hash;
   }
 
   @Override
-  public String toString() {
+  public final String toString() {
+    final StringBuilder values = new StringBuilder();
+    this.allMatch((option, value) -> {
+      if (values.length() > 0) values.append(", ");
+      values.append(option).append('=').append(value);
+      return true;
+    });
     return this.getClass().getSimpleName() + "{" +
-      "values=" + this.values +
-      '}';
+      "values={" + values +
+      "}}";
+  }
+
+  // derived values of a state by option index, locking on itself, as it stays private while interned states are shared
+  private static final class Derived {
+    private volatile AtomicReferenceArray<DerivedOptionImpl.Cached> values = new AtomicReferenceArray<>(0); // grown under the lock
+
+    <V> @Nullable V get(final DerivedOptionImpl<V> option) {
+      final AtomicReferenceArray<DerivedOptionImpl.Cached> values = this.values;
+      return option.index() < values.length() ? option.cached(values.get(option.index())) : null;
+    }
+
+    synchronized <V> @NotNull V compute(final OptionStateImpl state, final DerivedOptionImpl<V> option) {
+      final V existing = this.get(option);
+      if (existing != null) return existing; // computed while waiting for the lock
+
+      final DerivedOptionImpl.Cached entry = option.computeEntry(state);
+      final int index = option.index();
+      AtomicReferenceArray<DerivedOptionImpl.Cached> values = this.values; // computing may have derived other values
+      if (index >= values.length()) {
+        final AtomicReferenceArray<DerivedOptionImpl.Cached> grown = new AtomicReferenceArray<>(Math.max(index + 1, DerivedOptionImpl.limit()));
+        for (int i = 0; i < values.length(); i++) {
+          grown.lazySet(i, values.get(i));
+        }
+        this.values = grown;
+        values = grown;
+      }
+      values.set(index, entry); // replaces any value of a collected option that held this index
+      return option.cached(entry);
+    }
+  }
+
+  // values in an array indexed by option ordinal, with boolean, small enum, numeric and rollout options packed into bit fields
+  static final class Dense extends OptionStateImpl {
+    private final Option<?>[] options; // every option with a value, in ordinal order
+    private final Object[] values; // indexed by ordinal, null where unset
+    private final long[] bits; // packed values, addressed by bit offset
+    private final long[] present; // packed presence mask, addressed by packed index
+
+    Dense(final Option<?>[] options, final Object[] values, final long[] bits, final long[] present, final int hash) {
+      super(hash);
+      this.options = options;
+      this.values = values;
+      this.bits = bits;
+      this.present = present;
+    }
+
+    @Override
+    public boolean has(final @NotNull Option<?> option) {
+      final OptionImpl<?> impl = (OptionImpl<?>) requireNonNull(option, "flag");
+      if (impl.packed()) return present(this.present, impl.packedIndex());
+
+      final int ordinal = OptionImpl.ordinal(impl);
+      final Object[] values = this.values;
+      return ordinal < values.length && values[ordinal] != null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <V> V value(final @NotNull Option<V> option) {
+      final OptionImpl<V> impl = (OptionImpl<V>) requireNonNull(option, "flag");
+      if (impl.packed()) {
+        final boolean hit = present(this.present, impl.packedIndex());
+        if (OptionMetricsImpl.ENABLED) OptionImpl.recordRead(impl, hit);
+        return hit ? impl.unpack(this.bits) : option.defaultValue();
+      }
+
+      final int ordinal = OptionImpl.ordinal(impl);
+      final Object[] values = this.values;
+      final Object value = ordinal < values.length ? values[ordinal] : null;
+      if (OptionMetricsImpl.ENABLED) OptionImpl.recordRead(option, value != null);
+      return value == null ? option.defaultValue() : (V) value; // type checked when building
+    }
+
+    @Override
+    int size() {
+      return this.options.length;
+    }
+
+    @Override
+    @Nullable Object raw(final @NotNull Option<?> option) {
+      final OptionImpl<?> impl = (OptionImpl<?>) option;
+      if (impl.packed()) return present(this.present, impl.packedIndex()) ? impl.unpack(this.bits) : null;
+
+      final int ordinal = OptionImpl.ordinal(impl);
+      return ordinal < this.values.length ? this.values[ordinal] : null;
+    }
+
+    @Override
+    long packedValue(final @NotNull OptionImpl<?> option) {
+      return present(this.present, option.packedIndex()) ? option.unpackRaw(this.bits) : option.packedDefault();
+    }
+
+    @Override
+    boolean allOptions(final @NotNull Predicate<? super Option<?>> predicate) {
+      for (final Option<?> option : this.options) {
+        if (!predicate.test(option)) return false;
+      }
+      return true;
+    }
+
+    @Override
+    @NotNull Spliterator<Option<?>> options() {
+      return Spliterators.spliterator(this.options, OPTIONS_CHARACTERISTICS); // sized and evenly split by array range
+    }
+  }
+
+  // fallback for states with few values spread over a wide range of ordinals
+  static final class Sparse extends OptionStateImpl {
+    private final IdentityHashMap<Option<?>, Object> values;
+
+    Sparse(final IdentityHashMap<Option<?>, Object> values, final int hash) {
+      super(hash);
+      this.values = values;
+    }
+
+    @Override
+    public boolean has(final @NotNull Option<?> option) {
+      return this.values.containsKey(requireNonNull(option, "flag"));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <V> V value(final @NotNull Option<V> option) {
+      final Object value = this.values.get(requireNonNull(option, "flag"));
+      if (OptionMetricsImpl.ENABLED) OptionImpl.recordRead(option, value != null);
+      return value == null ? option.defaultValue() : (V) value; // type checked when building
+    }
+
+    @Override
+    int size() {
+      return this.values.size();
+    }
+
+    @Override
+    @Nullable Object raw(final @NotNull Option<?> option) {
+      return this.values.get(option);
+    }
+
+    @Override
+    long packedValue(final @NotNull OptionImpl<?> option) {
+      final Object value = this.values.get(option);
+      return value == null ? option.packedDefault() : option.pack(value);
+    }
+
+    @Override
+    boolean allOptions(final @NotNull Predicate<? super Option<?>> predicate) {
+      for (final Option<?> option : this.values.keySet()) {
+        if (!predicate.test(option)) return false;
+      }
+      return true;
+    }
+
+    @Override
+    @NotNull Spliterator<Option<?>> options() {
+      return this.values.keySet().spliterator(); // splits the hash table by range
+    }
+
+    @Override
+    boolean allMatch(final @NotNull BiPredicate<? super Option<?>, Object> predicate) {
+      for (final Map.Entry<Option<?>, Object> entry : this.values.entrySet()) {
+        if (!predicate.test(entry.getKey(), entry.getValue())) return false;
+      }
+      return true;
+    }
+  }
+
+  // overrides on top of a parent state, flattened once the chain gets deeper than MAX_OVERLAY_DEPTH
+  static final class Overlay extends OptionStateImpl {
+    final OptionStateImpl parent;
+    final OptionStateImpl overrides;
+    private final int depth;
+    private final int size;
+
+    private Overlay(final OptionStateImpl parent, final OptionStateImpl overrides, final int depth, final int size, final int hash) {
+      super(hash);
+      this.parent = parent;
+      this.overrides = overrides;
+      this.depth = depth;
+      this.size = size;
+    }
+
+    static @NotNull OptionStateImpl of(final @NotNull OptionStateImpl base, final @NotNull OptionStateImpl overrides) {
+      if (overrides.size() == 0) return base;
+      if (base.size() == 0) return overrides;
+
+      final int depth = Math.max(depth(base), depth(overrides)) + 1; // lookups recurse through both sides
+      if (depth > MAX_OVERLAY_DEPTH) {
+        return ((BuilderImpl) new BuilderImpl()
+          .values(base)
+          .values(overrides))
+          .build();
+      }
+
+      final int[] sizeAndHash = {base.size(), base.hashCode()};
+      overrides.allOptions(option -> {
+        final boolean had = base.has(option);
+        if (!had) sizeAndHash[0]++;
+        final OptionImpl<?> impl = (OptionImpl<?>) option;
+        if (impl.packed()) {
+          sizeAndHash[1] += entryHash(impl, overrides.packedValue(impl)) - (had ? entryHash(impl, base.packedValue(impl)) : 0);
+        } else {
+          final Object previous = base.raw(option);
+          sizeAndHash[1] += entryHash(option, overrides.raw(option)) - (had ? entryHash(option, previous) : 0);
+        }
+        return true;
+      });
+      return new Overlay(base, overrides, depth, sizeAndHash[0], sizeAndHash[1]);
+    }
+
+    private static int depth(final OptionStateImpl state) {
+      return state instanceof Overlay ? ((Overlay) state).depth : 0;
+    }
+
+    @Override
+    public boolean has(final @NotNull Option<?> option) {
+      return this.overrides.has(requireNonNull(option, "flag")) || this.parent.has(option);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <V> V value(final @NotNull Option<V> option) {
+      final Object value = this.overrides.raw(requireNonNull(option, "flag"));
+      if (value == null) return this.parent.value(option);
+
+      if (OptionMetricsImpl.ENABLED) OptionImpl.recordRead(option, true);
+      return (V) value; // type checked when building
+    }
+
+    @Override
+    int size() {
+      return this.size;
+    }
+
+    @Override
+    @Nullable Object raw(final @NotNull Option<?> option) {
+      final Object value = this.overrides.raw(option);
+      return value == null ? this.parent.raw(option) : value;
+    }
+
+    @Override
+    long packedValue(final @NotNull OptionImpl<?> option) {
+      return this.overrides.has(option) ? this.overrides.packedValue(option) : this.parent.packedValue(option);
+    }
+
+    @Override
+    boolean allOptions(final @NotNull Predicate<? super Option<?>> predicate) {
+      return this.overrides.allOptions(predicate)
+        && this.parent.allOptions(option -> this.overrides.has(option) || predicate.test(option));
+    }
+
+    @Override
+    @NotNull Spliterator<Option<?>> options() {
+      return new Options(this.overrides, this.overrides.options(), this.parent.options(), this.size - this.overrides.size(), true);
+    }
+
+    // the overrides, then the parent's options they do not shadow; splits hand off the overrides first, then halves of the parent
+    private static final class Options implements Spliterator<Option<?>>, Consumer<Option<?>> {
+      private final OptionStateImpl overrides;
+      private @Nullable Spliterator<Option<?>> head; // the overrides, until split off or exhausted
+      private final Spliterator<Option<?>> parent;
+      private long remaining; // parent options left to visit, exact while sized
+      private boolean sized;
+      private @Nullable Option<?> next; // set by accept when the parent advances to an unshadowed option
+
+      Options(final OptionStateImpl overrides, final @Nullable Spliterator<Option<?>> head, final Spliterator<Option<?>> parent, final long remaining, final boolean sized) {
+        this.overrides = overrides;
+        this.head = head;
+        this.parent = parent;
+        this.remaining = remaining;
+        this.sized = sized;
+      }
+
+      @Override
+      public void accept(final Option<?> option) {
+        if (!this.overrides.has(option)) this.next = option;
+      }
+
+      @Override
+      public boolean tryAdvance(final @NotNull Consumer<? super Option<?>> action) {
+        if (this.head != null) {
+          if (this.head.tryAdvance(action)) return true;
+          this.head = null;
+        }
+        while (this.parent.tryAdvance(this)) {
+          final Option<?> next = this.next;
+          if (next != null) {
+            this.next = null;
+            if (this.remaining > 0) this.remaining--;
+            action.accept(next);
+            return true;
+          }
+        }
+        return false;
+      }
+
+      @Override
+      public void forEachRemaining(final @NotNull Consumer<? super Option<?>> action) {
+        if (this.head != null) {
+          this.head.forEachRemaining(action);
+          this.head = null;
+        }
+        this.parent.forEachRemaining(option -> {
+          if (!this.overrides.has(option)) action.accept(option);
+        });
+        this.remaining = 0;
+      }
+
+      @Override
+      public @Nullable Spliterator<Option<?>> trySplit() {
+        final Spliterator<Option<?>> head = this.head;
+        if (head != null) {
+          this.head = null;
+          return head;
+        }
+
+        final Spliterator<Option<?>> prefix = this.parent.trySplit();
+        if (prefix == null) return null;
+        final Options split = new Options(this.overrides, null, prefix, this.remaining >>> 1, false);
+        this.remaining -= split.remaining;
+        this.sized = false;
+        return split;
+      }
+
+      @Override
+      public long estimateSize() {
+        final long size = this.remaining + (this.head == null ? 0 : this.head.estimateSize());
+        return size < 0 ? Long.MAX_VALUE : size;
+      }
+
+      @Override
+      public int characteristics() {
+        final boolean sized = this.sized && (this.head == null || this.head.hasCharacteristics(Spliterator.SIZED));
+        return sized ? OPTIONS_CHARACTERISTICS | Spliterator.SIZED : OPTIONS_CHARACTERISTICS;
+      }
+    }
+  }
+
+  // values in fixed-size chunks indexed by ordinal, so derived states copy only the chunks they change
+  static final class Persistent extends OptionStateImpl {
+    static final Persistent EMPTY = new Persistent(new Object[0][], new long[0], new long[0], 0, 0);
+    private static final int CHUNK_SHIFT = 5;
+    private static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+
+    private final Object[][] chunks; // per chunk, option and value pairs; packed options only keep their key here
+    private final long[] bits;
+    private final long[] present;
+    private final int size;
+
+    private Persistent(final Object[][] chunks, final long[] bits, final long[] present, final int size, final int hash) {
+      super(hash);
+      this.chunks = chunks;
+      this.bits = bits;
+      this.present = present;
+      this.size = size;
+    }
+
+    @Override
+    public boolean has(final @NotNull Option<?> option) {
+      final OptionImpl<?> impl = (OptionImpl<?>) requireNonNull(option, "flag");
+      if (impl.packed()) return present(this.present, impl.packedIndex());
+
+      return this.slot(OptionImpl.ordinal(impl)) != null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <V> V value(final @NotNull Option<V> option) {
+      final OptionImpl<V> impl = (OptionImpl<V>) requireNonNull(option, "flag");
+      if (impl.packed()) {
+        final boolean hit = present(this.present, impl.packedIndex());
+        if (OptionMetricsImpl.ENABLED) OptionImpl.recordRead(impl, hit);
+        return hit ? impl.unpack(this.bits) : option.defaultValue();
+      }
+
+      final Object value = this.slot(OptionImpl.ordinal(impl));
+      if (OptionMetricsImpl.ENABLED) OptionImpl.recordRead(option, value != null);
+      return value == null ? option.defaultValue() : (V) value; // type checked when building
+    }
+
+    private @Nullable Object slot(final int ordinal) {
+      final Object[][] chunks = this.chunks;
+      final int index = ordinal >>> CHUNK_SHIFT;
+      final Object[] chunk = index < chunks.length ? chunks[index] : null;
+      return chunk == null ? null : chunk[((ordinal & CHUNK_MASK) << 1) + 1];
+    }
+
+    @Override
+    int size() {
+      return this.size;
+    }
+
+    @Override
+    @Nullable Object raw(final @NotNull Option<?> option) {
+      final OptionImpl<?> impl = (OptionImpl<?>) option;
+      if (impl.packed()) return present(this.present, impl.packedIndex()) ? impl.unpack(this.bits) : null;
+
+      return this.slot(OptionImpl.ordinal(impl));
+    }
+
+    @Override
+    long packedValue(final @NotNull OptionImpl<?> option) {
+      return present(this.present, option.packedIndex()) ? option.unpackRaw(this.bits) : option.packedDefault();
+    }
+
+    @Override
+    boolean allOptions(final @NotNull Predicate<? super Option<?>> predicate) {
+      for (final Object[] chunk : this.chunks) {
+        if (chunk == null) continue;
+        for (int i = 0; i < chunk.length; i += 2) {
+          final Option<?> option = (Option<?>) chunk[i];
+          if (option != null && !predicate.test(option)) return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    @NotNull Spliterator<Option<?>> options() {
+      return new Options(this.chunks, 0, this.chunks.length, this.size, OPTIONS_CHARACTERISTICS | Spliterator.SIZED);
+    }
+
+    // splits by chunk range, so only the root knows its exact size
+    private static final class Options implements Spliterator<Option<?>> {
+      private final Object[][] chunks;
+      private int chunk;
+      private int slot;
+      private int end;
+      private long estimate;
+      private int characteristics;
+
+      Options(final Object[][] chunks, final int chunk, final int end, final long estimate, final int characteristics) {
+        this.chunks = chunks;
+        this.chunk = chunk;
+        this.end = end;
+        this.estimate = estimate;
+        this.characteristics = characteristics;
+      }
+
+      @Override
+      public boolean tryAdvance(final @NotNull Consumer<? super Option<?>> action) {
+        for (; this.chunk < this.end; this.chunk++, this.slot = 0) {
+          final Object[] chunk = this.chunks[this.chunk];
+          if (chunk == null) continue;
+          while (this.slot < chunk.length) {
+            final Option<?> option = (Option<?>) chunk[this.slot];
+            this.slot += 2;
+            if (option != null) {
+              if (this.estimate > 0) this.estimate--;
+              action.accept(option);
+              return true;
+            }
+          }
+        }
+        return false;
+      }
+
+      @Override
+      public @Nullable Spliterator<Option<?>> trySplit() {
+        final int start = this.slot == 0 ? this.chunk : this.chunk + 1; // leave a partly read chunk here
+        final int mid = (start + this.end) >>> 1;
+        if (mid <= start) return null;
+
+        final Options prefix = new Options(this.chunks, this.chunk, mid, this.estimate >>> 1, OPTIONS_CHARACTERISTICS);
+        prefix.slot = this.slot;
+        this.chunk = mid;
+        this.slot = 0;
+        this.estimate -= prefix.estimate;
+        this.characteristics = OPTIONS_CHARACTERISTICS;
+        return prefix;
+      }
+
+      @Override
+      public long estimateSize() {
+        return this.estimate;
+      }
+
+      @Override
+      public int characteristics() {
+        return this.characteristics;
+      }
+    }
+
+    @Override
+    OptionStateDiffImpl diff(final @NotNull OptionStateImpl other) {
+      if (!(other instanceof Persistent)) return super.diff(other);
+
+      // chunks untouched between two versions are shared, so only copied chunks need comparing
+      final Persistent that = (Persistent) other;
+      final OptionStateDiffImpl.Builder diff = new OptionStateDiffImpl.Builder();
+      final int length = Math.max(this.chunks.length, that.chunks.length);
+      for (int index = 0; index < length; index++) {
+        final Object[] before = index < this.chunks.length ? this.chunks[index] : null;
+        final Object[] after = index < that.chunks.length ? that.chunks[index] : null;
+        if (before == after) continue;
+
+        for (int slot = 0; slot < (CHUNK_MASK + 1) << 1; slot += 2) {
+          final Object key = before != null && before[slot] != null ? before[slot] : after == null ? null : after[slot];
+          if (key == null) continue;
+          final Option<?> option = (Option<?>) key;
+          diff.compare(option, this.raw(option), that.raw(option));
+        }
+      }
+      return diff.build();
+    }
+
+    // a state with every value of the layer applied on top of this one, or this state if the layer changes nothing
+    Persistent with(final @NotNull OptionStateImpl layer) {
+      final Editor editor = new Editor(this, layer);
+      layer.allOptions(editor);
+      return editor.changed ? new Persistent(editor.chunks, editor.bits, editor.present, editor.size, editor.hash) : this;
+    }
+
+    // packed values are carried over as their packed form, without boxing
+    private static final class Editor implements Predicate<Option<?>> {
+      private final Persistent base;
+      private final OptionStateImpl layer;
+      private final BitSet copiedChunks = new BitSet();
+      private Object[][] chunks;
+      private long[] bits;
+      private long[] present;
+      private int size;
+      private int hash;
+      private boolean changed;
+
+      Editor(final Persistent base, final OptionStateImpl layer) {
+        this.base = base;
+        this.layer = layer;
+        this.chunks = base.chunks;
+        this.bits = base.bits;
+        this.present = base.present;
+        this.size = base.size;
+        this.hash = base.hashCode();
+      }
+
+      @Override
+      public boolean test(final Option<?> option) {
+        final OptionImpl<?> impl = (OptionImpl<?>) option;
+        final boolean had = this.base.has(option);
+        final long packed;
+        final Object value;
+        if (impl.packed()) {
+          packed = this.layer.packedValue(impl);
+          value = null;
+          final long previous = this.base.packedValue(impl);
+          if (had && packed == previous) return true;
+          this.hash += entryHash(impl, packed) - (had ? entryHash(impl, previous) : 0);
+        } else {
+          packed = 0;
+          value = this.layer.raw(option);
+          final Object previous = this.base.raw(option);
+          if (value.equals(previous)) return true;
+          this.hash += entryHash(option, value) - (had ? entryHash(option, previous) : 0);
+        }
+
+        if (!this.changed) {
+          this.chunks = this.chunks.clone();
+          this.changed = true;
+        }
+        final int ordinal = OptionImpl.ordinal(option);
+        final int index = ordinal >>> CHUNK_SHIFT;
+        if (index >= this.chunks.length) this.chunks = Arrays.copyOf(this.chunks, index + 1);
+        Object[] chunk = this.chunks[index];
+        if (!this.copiedChunks.get(index)) {
+          chunk = chunk == null ? new Object[(CHUNK_MASK + 1) << 1] : chunk.clone();
+          this.chunks[index] = chunk;
+          this.copiedChunks.set(index);
+        }
+
+        final int slot = (ordinal & CHUNK_MASK) << 1;
+        if (chunk[slot] == null) this.size++;
+        chunk[slot] = option;
+        if (impl.packed()) {
+          final int presentWords = (impl.packedIndex() >>> 6) + 1;
+          final int bitWords = (impl.bitEnd() + Long.SIZE - 1) >>> 6;
+          if (this.present == this.base.present || this.present.length < presentWords) {
+            this.present = Arrays.copyOf(this.present, Math.max(this.present.length, presentWords));
+          }
+          if (this.bits == this.base.bits || this.bits.length < bitWords) {
+            this.bits = Arrays.copyOf(this.bits, Math.max(this.bits.length, bitWords));
+          }
+          impl.packInto(this.bits, packed);
+          this.present[impl.packedIndex() >>> 6] |= 1L << impl.packedIndex();
+        } else {
+          chunk[slot + 1] = value;
+        }
+        return true;
+      }
+    }
   }
 
   static final class VersionedImpl implements Versioned {
-    private final SortedMap<Integer, OptionState> sets;
-    private final int targetVersion;
-    private final OptionState filtered;
+    private final NavigableMap<Integer, OptionState> sets;
+    private final int targetVersion; // the declared version this view resolves to, or MIN_VALUE before the first version
+    private final OptionStateImpl filtered;
+    private final SortedMap<Integer, OptionState> childStates;
+    // shared between every view of the same versioned state
+    private final int[] versions; // declared versions, ascending
+    private final VersionedImpl[] views; // views[i + 1] is the view at versions[i], views[0] precedes every version
+    private final int hash;
 
-    VersionedImpl(final SortedMap<Integer, OptionState> sets, final int targetVersion, final OptionState filtered) {
+    private VersionedImpl(final NavigableMap<Integer, OptionState> sets, final int setsHash, final int targetVersion, final OptionStateImpl filtered, final SortedMap<Integer, OptionState> childStates, final int[] versions, final VersionedImpl[] views) {
       this.sets = sets;
       this.targetVersion = targetVersion;
       this.filtered = filtered;
+      this.childStates = Collections.unmodifiableSortedMap(childStates);
+      this.versions = versions;
+      this.views = views;
+      this.hash = Objects.hash(
+        setsHash,
+        this.targetVersion,
+        this.filtered
+      );
     }
 
     @Override
@@ -95,24 +863,90 @@ final class OptionStateImpl implements OptionState {
       return this.filtered.value(option);
     }
 
+    @Override
+    public <V> @NotNull V value(final @NotNull DerivedOption<V> option) {
+      return this.filtered.value(option);
+    }
+
+    @Override
+    public boolean enabledFor(final @NotNull Option<Rollout> option, final long subjectId) {
+      return this.filtered.enabledFor(option, subjectId);
+    }
+
+    @Override
+    public boolean booleanValue(final @NotNull Option<Boolean> option) {
+      return this.filtered.booleanValue(option);
+    }
+
+    @Override
+    public int intValue(final @NotNull Option<Integer> option) {
+      return this.filtered.intValue(option);
+    }
+
+    @Override
+    public long longValue(final @NotNull Option<Long> option) {
+      return this.filtered.longValue(option);
+    }
+
+    @Override
+    public double doubleValue(final @NotNull Option<Double> option) {
+      return this.filtered.doubleValue(option);
+    }
+
     @Override
     public @NotNull Map<Integer, OptionState> childStates() {
-      return Collections.unmodifiableSortedMap(this.sets.headMap(this.targetVersion + 1));
+      return this.childStates;
     }
 
     @Override
     public @NotNull Versioned at(final int version) {
-      return new VersionedImpl(this.sets, version, flattened(this.sets, version));
+      final Object event = OptionMetricsImpl.ENABLED ? OptionEvents.beginVersionLookup() : null;
+      final int index = Arrays.binarySearch(this.versions, version);
+      final VersionedImpl view = this.views[index >= 0 ? index + 1 : -index - 1]; // exact match, or the closest version below
+      if (OptionMetricsImpl.ENABLED) OptionEvents.commitVersionLookup(event, version, view.targetVersion);
+      return view;
     }
 
-    public static OptionState flattened(final SortedMap<Integer, OptionState> versions, final int targetVersion) {
-      final Map<Integer, OptionState> applicable = versions.headMap(targetVersion + 1);
-      final OptionState.Builder builder = OptionState.optionState();
-      for (final OptionState child : applicable.values()) {
-        builder.values(child);
+    @Override
+    public @NotNull Diff changesBetween(final int from, final int to) {
+      final OptionStateImpl before = ((VersionedImpl) this.at(from)).filtered;
+      final OptionStateImpl after = ((VersionedImpl) this.at(to)).filtered;
+      if (before == after) return OptionStateDiffImpl.EMPTY;
+
+      // only options set by a layer between the two versions can differ
+      final Set<Option<?>> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+      final OptionStateDiffImpl.Builder diff = new OptionStateDiffImpl.Builder();
+      for (final OptionState layer : this.sets.subMap(Math.min(from, to), false, Math.max(from, to), true).values()) {
+        flat(layer).allOptions(option -> {
+          if (seen.add(option)) diff.compare(option, before.raw(option), after.raw(option));
+          return true;
+        });
       }
+      return diff.build();
+    }
+
+    // one view per declared version, each sharing the storage its layer leaves untouched with the previous version
+    static VersionedImpl[] flattened(final NavigableMap<Integer, OptionState> sets) {
+      final Object event = OptionMetricsImpl.ENABLED ? OptionEvents.beginFlatten() : null;
+      final int[] versions = new int[sets.size()];
+      final VersionedImpl[] views = new VersionedImpl[versions.length + 1];
+      final int setsHash = sets.hashCode();
+      views[0] = new VersionedImpl(sets, setsHash, Integer.MIN_VALUE, EMPTY, Collections.emptySortedMap(), versions, views);
 
-      return builder.build();
+      Persistent flattened = Persistent.EMPTY;
+      int index = 0;
+      for (final Map.Entry<Integer, OptionState> entry : sets.entrySet()) {
+        flattened = flattened.with(flat(entry.getValue()));
+        versions[index] = entry.getKey();
+        views[++index] = new VersionedImpl(sets, setsHash, entry.getKey(), flattened, sets.headMap(entry.getKey(), true), versions, views);
+      }
+      if (OptionMetricsImpl.ENABLED) OptionEvents.commitFlatten(event, versions.length, flattened.size());
+      return views;
+    }
+
+    @Override
+    public @NotNull Versioned interned() {
+      return intern(this);
     }
 
     @Override
@@ -120,18 +954,15 @@ final class OptionStateImpl implements OptionState {
       if (this == other) return true;
       if (other == null || getClass() != other.getClass()) return false;
       final VersionedImpl that = (VersionedImpl) other;
-      return this.targetVersion == that.targetVersion
+      return this.hash == that.hash
+        && this.targetVersion == that.targetVersion
         && Objects.equals(this.sets, that.sets)
         && Objects.equals(this.filtered, that.filtered);
     }
 
     @Override
     public int hashCode() {
-      return Objects.hash(
-        this.sets,
-        this.targetVersion,
-        this.filtered
-      );
+      return this.hash;
     }
 
     @Override
@@ -145,52 +976,160 @@ final class OptionStateImpl implements OptionState {
   }
 
   static final class BuilderImpl implements OptionState.Builder {
+    private static final Object PACKED = new Object(); // marks packed options, whose values are held in bits
     private final IdentityHashMap<Option<?>, Object> values = new IdentityHashMap<>();
+    private long[] bits = new long[0];
+    private long[] present = new long[0];
+    private int maxOrdinal = -1; // of reference-stored options
+    private int maxPackedIndex = -1;
+    private int bitEnd;
+    private int hash;
 
     @Override
-    public @NotNull OptionState build() {
+    public @NotNull OptionStateImpl build() {
+      if (!OptionMetricsImpl.ENABLED) return this.layout();
+
+      final Object event = OptionEvents.beginBuild();
+      final OptionStateImpl state = this.layout();
+      OptionEvents.commitBuild(event, state);
+      return state;
+    }
+
+    private OptionStateImpl layout() {
       if (this.values.isEmpty()) return EMPTY;
 
-      return new OptionStateImpl(this.values);
+      final int size = this.values.size();
+      final int bitWords = (this.bitEnd + Long.SIZE - 1) >>> 6;
+      final int presentWords = this.maxPackedIndex < 0 ? 0 : (this.maxPackedIndex >>> 6) + 1;
+      if (this.maxOrdinal + bitWords + presentWords >= Math.max(MIN_DENSE_LENGTH, size * MAX_SLOTS_PER_VALUE)) {
+        final IdentityHashMap<Option<?>, Object> values = new IdentityHashMap<>(this.values);
+        for (final Map.Entry<Option<?>, Object> entry : values.entrySet()) {
+          if (entry.getValue() == PACKED) entry.setValue(((OptionImpl<?>) entry.getKey()).unpack(this.bits));
+        }
+        return new Sparse(values, this.hash);
+      }
+
+      final Option<?>[] options = this.values.keySet().toArray(new Option<?>[size]);
+      Arrays.sort(options, Comparator.comparingInt(OptionImpl::ordinal));
+      final Object[] values = new Object[this.maxOrdinal + 1];
+      for (final Option<?> option : options) {
+        final Object value = this.values.get(option);
+        if (value != PACKED) values[OptionImpl.ordinal(option)] = value;
+      }
+      final long[] bits = Arrays.copyOf(this.bits, bitWords);
+      final long[] present = Arrays.copyOf(this.present, presentWords);
+      return new Dense(options, values, bits, present, this.hash);
     }
 
     @Override
     public <V> @NotNull Builder value(final @NotNull Option<V> option, final @NotNull V value) {
-      this.values.put(
+      this.put(
         requireNonNull(option, "flag"),
-        requireNonNull(value, "value")
+        option.type().cast(requireNonNull(value, "value"))
       );
       return this;
     }
 
+    @Override
+    public @NotNull Builder intValue(final @NotNull Option<Integer> option, final int value) {
+      this.putPacked((OptionImpl<?>) requireNonNull(option, "flag"), value & 0xffffffffL);
+      return this;
+    }
+
+    @Override
+    public @NotNull Builder longValue(final @NotNull Option<Long> option, final long value) {
+      this.putPacked((OptionImpl<?>) requireNonNull(option, "flag"), value);
+      return this;
+    }
+
+    @Override
+    public @NotNull Builder doubleValue(final @NotNull Option<Double> option, final double value) {
+      this.putPacked((OptionImpl<?>) requireNonNull(option, "flag"), Double.doubleToRawLongBits(value));
+      return this;
+    }
+
     @Override
     public @NotNull Builder values(final @NotNull OptionState existing) {
-      if (existing instanceof OptionStateImpl) {
-        this.values.putAll(((OptionStateImpl) existing).values);
-      } else if (existing instanceof VersionedImpl) {
-        this.values.putAll(((OptionStateImpl) ((VersionedImpl) existing).filtered).values);
-      } else {
-        throw new IllegalArgumentException("existing set " + existing + " is of an unknown implementation type");
+      final OptionStateImpl state = flat(existing);
+      state.allOptions(option -> {
+        this.copy(state, option);
+        return true;
+      });
+      return this;
+    }
+
+    @Override
+    public @NotNull Builder values(final @NotNull Map<?, ?> source, final @NotNull OptionCodecs codecs) {
+      final List<OptionCodecs.Failure> failures = new ArrayList<>();
+      this.values(source, codecs, failures::add);
+      if (!failures.isEmpty()) {
+        throw new IllegalArgumentException(failures.size() + " option values could not be read: " + failures);
       }
       return this;
     }
+
+    @Override
+    public @NotNull Builder values(final @NotNull Map<?, ?> source, final @NotNull OptionCodecs codecs, final @NotNull Consumer<? super OptionCodecs.Failure> failures) {
+      ((OptionCodecsImpl) requireNonNull(codecs, "codecs")).load(this, requireNonNull(source, "source"), requireNonNull(failures, "failures"));
+      return this;
+    }
+
+    // copies the value an option has in a state, which must hold one
+    void copy(final OptionStateImpl state, final Option<?> option) {
+      final OptionImpl<?> impl = (OptionImpl<?>) option;
+      if (impl.packed()) {
+        this.putPacked(impl, state.packedValue(impl));
+      } else {
+        this.put(option, state.raw(option));
+      }
+    }
+
+    void put(final Option<?> option, final Object value) {
+      final OptionImpl<?> impl = (OptionImpl<?>) option;
+      if (impl.packed()) {
+        this.putPacked(impl, impl.pack(value));
+        return;
+      }
+
+      final Object previous = this.values.put(option, value);
+      this.hash += entryHash(option, value) - (previous == null ? 0 : entryHash(option, previous));
+      this.maxOrdinal = Math.max(this.maxOrdinal, OptionImpl.ordinal(option));
+    }
+
+    void putPacked(final OptionImpl<?> option, final long packed) {
+      final int packedIndex = option.packedIndex();
+      if (this.values.put(option, PACKED) != null) {
+        this.hash -= entryHash(option, option.unpackRaw(this.bits));
+      } else {
+        if (packedIndex > this.maxPackedIndex) {
+          this.maxPackedIndex = packedIndex;
+          if ((packedIndex >>> 6) >= this.present.length) this.present = Arrays.copyOf(this.present, Math.max((packedIndex >>> 6) + 1, this.present.length << 1));
+        }
+        if (option.bitEnd() > this.bitEnd) {
+          this.bitEnd = option.bitEnd();
+          final int bitWords = (this.bitEnd + Long.SIZE - 1) >>> 6;
+          if (bitWords > this.bits.length) this.bits = Arrays.copyOf(this.bits, Math.max(bitWords, this.bits.length << 1));
+        }
+        this.present[packedIndex >>> 6] |= 1L << packedIndex;
+      }
+      option.packInto(this.bits, packed);
+      this.hash += entryHash(option, packed);
+    }
   }
 
+
   static final class VersionedBuilderImpl implements OptionState.VersionedBuilder {
     private final Map<Integer, OptionStateImpl.BuilderImpl> builders = new TreeMap<>();
 
     @Override
     public OptionState.@NotNull Versioned build() {
-      if (this.builders.isEmpty()) {
-        return new VersionedImpl(Collections.emptySortedMap(), 0, OptionState.emptyOptionState());
-      }
-
-      final SortedMap<Integer, OptionState> built = new TreeMap<>();
+      final NavigableMap<Integer, OptionState> built = new TreeMap<>();
       for (final Map.Entry<Integer, OptionStateImpl.BuilderImpl> entry : this.builders.entrySet()) {
         built.put(entry.getKey(), entry.getValue().build());
       }
-      // generate 'flattened' latest element
-      return new VersionedImpl(built, built.lastKey(), VersionedImpl.flattened(built, built.lastKey()));
+      // flatten every version up front, the latest is the default view
+      final VersionedImpl[] views = VersionedImpl.flattened(built);
+      return views[views.length - 1];
     }
 
     @Override
@@ -200,4 +1139,84 @@ final class OptionStateImpl implements OptionState {
       return this;
     }
   }
+
+  // entries of the options a spliterator reads, so streams keep its characteristics
+  private static final class Entries implements Spliterator<Entry<?>> {
+    private final OptionStateImpl state;
+    private final Spliterator<Option<?>> options;
+
+    Entries(final OptionStateImpl state, final Spliterator<Option<?>> options) {
+      this.state = state;
+      this.options = options;
+    }
+
+    @Override
+    public boolean tryAdvance(final @NotNull Consumer<? super Entry<?>> action) {
+      return this.options.tryAdvance(option -> action.accept(new EntryImpl<>(option, this.state.raw(option))));
+    }
+
+    @Override
+    public void forEachRemaining(final @NotNull Consumer<? super Entry<?>> action) {
+      this.options.forEachRemaining(option -> action.accept(new EntryImpl<>(option, this.state.raw(option))));
+    }
+
+    @Override
+    public @Nullable Spliterator<Entry<?>> trySplit() {
+      final Spliterator<Option<?>> prefix = this.options.trySplit();
+      return prefix == null ? null : new Entries(this.state, prefix);
+    }
+
+    @Override
+    public long estimateSize() {
+      return this.options.estimateSize();
+    }
+
+    @Override
+    public int characteristics() {
+      return this.options.characteristics() | Spliterator.IMMUTABLE | Spliterator.NONNULL | Spliterator.DISTINCT; // states never change, whatever their storage reports
+    }
+  }
+
+  static final class EntryImpl<V> implements Entry<V> {
+    private final Option<V> option;
+    private final V value;
+
+    @SuppressWarnings("unchecked")
+    EntryImpl(final Option<V> option, final Object value) {
+      this.option = option;
+      this.value = (V) value;
+    }
+
+    @Override
+    public @NotNull Option<V> option() {
+      return this.option;
+    }
+
+    @Override
+    public @NotNull V value() {
+      return this.value;
+    }
+
+    @Override
+    public boolean equals(final @Nullable Object other) {
+      if (this == other) return true;
+      if (other == null || getClass() != other.getClass()) return false;
+      final EntryImpl<?> that = (EntryImpl<?>) other;
+      return this.option.equals(that.option)
+        && this.value.equals(that.value);
+    }
+
+    @Override
+    public int hashCode() {
+      return entryHash(this.option, this.value);
+    }
+
+    @Override
+    public String toString() {
+      return this.getClass().getSimpleName() + "{" +
+        "option=" + this.option.id() +
+        ", value=" + this.value +
+        '}';
+    }
+  }
 }
@@ -0,0 +1,130 @@
+/*
+ * This file is part of option, licensed under the MIT License.
+ *
+ * Copyright (c) 2023 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.option;
+
+import java.util.List;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A fixed set of options that can be resolved against a state all at once.
+ *
+ * <p>Binding a view reads every option once, so code that repeatedly reads the same options only pays for lookups when the state changes.</p>
+ *
+ * @since 1.1.0
+ */
+@ApiStatus.NonExtendable
+public interface OptionView {
+  /**
+   * Create a view over certain options.
+   *
+   * @param options the options to include, in the order used by {@link Bound#value(int)}
+   * @return the view
+   * @throws IllegalArgumentException if an option is included more than once
+   * @since 1.1.0
+   */
+  static @NotNull OptionView optionView(final @NotNull Option<?>... options) {
+    return new OptionViewImpl(options);
+  }
+
+  /**
+   * Get the options in this view.
+   *
+   * @return the options
+   * @since 1.1.0
+   */
+  @NotNull List<Option<?>> options();
+
+  /**
+   * Resolve every option in this view against a state.
+   *
+   * <p>The most recently bound state is cached, so binding the same state again is cheap.
+   * Live states are resolved against their current snapshot.
+   * Mapped states are resolved against a new snapshot on every call, so they are never cached.</p>
+   *
+   * @param state the state to read values from
+   * @return the resolved values
+   * @since 1.1.0
+   */
+  @NotNull Bound bind(final @NotNull OptionState state);
+
+  /**
+   * The values of a view's options in a single state.
+   *
+   * @since 1.1.0
+   */
+  @ApiStatus.NonExtendable
+  interface Bound {
+    /**
+     * Get the view these values were resolved for.
+     *
+     * @return the view
+     * @since 1.1.0
+     */
+    @NotNull OptionView view();
+
+    /**
+     * Get the value of an option in the view.
+     *
+     * @param option the option to query
+     * @return the option value
+     * @param <V> the value type
+     * @throws IllegalArgumentException if the option is not part of the view
+     * @since 1.1.0
+     */
+    <V> V value(final @NotNull Option<V> option);
+
+    /**
+     * Get the value of a boolean option in the view, without boxing.
+     *
+     * @param option the option to query
+     * @return the option value
+     * @throws IllegalArgumentException if the option is not part of the view
+     * @since 1.1.0
+     */
+    boolean booleanValue(final @NotNull Option<Boolean> option);
+
+    /**
+     * Get the value of the option at a certain position in the view.
+     *
+     * @param index the position of the option in {@link #options()}
+     * @return the option value
+     * @throws IndexOutOfBoundsException if there is no option at that position
+     * @since 1.1.0
+     */
+    @Nullable Object value(final int index);
+
+    /**
+     * Get the value of the boolean option at a certain position in the view.
+     *
+     * @param index the position of the option in {@link #options()}
+     * @return the option value
+     * @throws IndexOutOfBoundsException if there is no option at that position
+     * @throws ClassCastException if the option at that position is not a boolean option
+     * @since 1.1.0
+     */
+    boolean booleanValue(final int index);
+  }
+}
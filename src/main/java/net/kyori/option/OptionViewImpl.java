@@ -0,0 +1,150 @@
+/*
+ * This file is part of option, licensed under the MIT License.
+ *
+ * Copyright (c) 2023 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.option;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import static java.util.Objects.requireNonNull;
+
+final class OptionViewImpl implements OptionView {
+  private final Option<?>[] options;
+  private final List<Option<?>> optionList;
+  // open addressed by ordinal, holding position + 1 with 0 marking an empty slot
+  private final int[] positions;
+  private final int mask;
+  private volatile @Nullable BoundImpl cached;
+
+  OptionViewImpl(final Option<?>[] options) {
+    this.options = options.clone();
+    this.optionList = Collections.unmodifiableList(Arrays.asList(this.options));
+    final int capacity = Integer.highestOneBit(Math.max(this.options.length, 1) * 2 - 1) << 1;
+    this.positions = new int[capacity];
+    this.mask = capacity - 1;
+    for (int i = 0; i < this.options.length; i++) {
+      final Option<?> option = requireNonNull(this.options[i], "flag");
+      int slot = OptionImpl.ordinal(option) & this.mask;
+      while (this.positions[slot] != 0) {
+        if (this.options[this.positions[slot] - 1] == option) {
+          throw new IllegalArgumentException("option " + option.id() + " is included more than once");
+        }
+        slot = (slot + 1) & this.mask;
+      }
+      this.positions[slot] = i + 1;
+    }
+  }
+
+  @Override
+  public @NotNull List<Option<?>> options() {
+    return this.optionList;
+  }
+
+  @Override
+  public @NotNull Bound bind(final @NotNull OptionState state) {
+    final OptionStateImpl flat = OptionStateImpl.flat(requireNonNull(state, "state"));
+    final BoundImpl cached = this.cached;
+    if (cached != null && cached.state == flat) return cached;
+
+    final Object[] values = new Object[this.options.length];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = flat.value(this.options[i]);
+    }
+    final BoundImpl bound = new BoundImpl(this, flat, values);
+    if (!(state instanceof MappedOptionStateImpl)) this.cached = bound; // each mapped snapshot is a new state, which would never hit
+    return bound;
+  }
+
+  // position of the option in this view, or -1
+  int position(final Option<?> option) {
+    int slot = OptionImpl.ordinal(option) & this.mask;
+    int position;
+    while ((position = this.positions[slot]) != 0) {
+      if (this.options[position - 1] == option) return position - 1;
+      slot = (slot + 1) & this.mask;
+    }
+    return -1;
+  }
+
+  @Override
+  public String toString() {
+    return this.getClass().getSimpleName() + "{" +
+      "options=" + this.optionList +
+      '}';
+  }
+
+  static final class BoundImpl implements Bound {
+    private final OptionViewImpl view;
+    final OptionStateImpl state;
+    private final Object[] values;
+
+    BoundImpl(final OptionViewImpl view, final OptionStateImpl state, final Object[] values) {
+      this.view = view;
+      this.state = state;
+      this.values = values;
+    }
+
+    @Override
+    public @NotNull OptionView view() {
+      return this.view;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <V> V value(final @NotNull Option<V> option) {
+      return (V) this.values[this.position(option)]; // type checked when building the state
+    }
+
+    @Override
+    public boolean booleanValue(final @NotNull Option<Boolean> option) {
+      return (Boolean) this.values[this.position(option)];
+    }
+
+    @Override
+    public @Nullable Object value(final int index) {
+      return this.values[index];
+    }
+
+    @Override
+    public boolean booleanValue(final int index) {
+      return (Boolean) this.values[index];
+    }
+
+    private int position(final Option<?> option) {
+      final int position = this.view.position(requireNonNull(option, "flag"));
+      if (position == -1) throw new IllegalArgumentException("option " + option.id() + " is not part of " + this.view);
+      return position;
+    }
+
+    @Override
+    public String toString() {
+      return this.getClass().getSimpleName() + "{" +
+        "options=" + this.view.optionList +
+        ", values=" + Arrays.toString(this.values) +
+        '}';
+    }
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * This file is part of option, licensed under the MIT License.
+ *
+ * Copyright (c) 2023 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.option;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The share of subjects a rollout option is enabled for.
+ *
+ * <p>Whether a rollout is enabled for a subject is read with {@link OptionState#enabledFor(Option, long)}. Each subject id is hashed together with the option id and seed, so the same subjects stay enabled as a rollout grows, and different options enable independent sets of subjects. The hash is stable across processes and releases.</p>
+ *
+ * @since 1.1.0
+ */
+@ApiStatus.NonExtendable
+public interface Rollout {
+  /**
+   * Get a rollout enabled for a percentage of subjects.
+   *
+   * @param percentage the percentage, from {@code 0} to {@code 100}
+   * @return the rollout
+   * @throws IllegalArgumentException if the percentage is out of range
+   * @since 1.1.0
+   */
+  static @NotNull Rollout percentage(final double percentage) {
+    return RolloutImpl.percentage(percentage);
+  }
+
+  /**
+   * Get a rollout enabled for a number of equally sized buckets of subjects.
+   *
+   * @param enabled the number of enabled buckets
+   * @param total the total number of buckets
+   * @return the rollout
+   * @throws IllegalArgumentException if {@code total} is not positive, or {@code enabled} is not between {@code 0} and {@code total}
+   * @since 1.1.0
+   */
+  static @NotNull Rollout buckets(final long enabled, final long total) {
+    return RolloutImpl.buckets(enabled, total);
+  }
+
+  /**
+   * Get the percentage of subjects this rollout is enabled for.
+   *
+   * @return the percentage, from {@code 0} to {@code 100}
+   * @since 1.1.0
+   */
+  double percentage();
+}
@@ -0,0 +1,85 @@
+/*
+ * This file is part of option, licensed under the MIT License.
+ *
+ * Copyright (c) 2023 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.option;
+
+import java.math.BigInteger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+// a rollout is stored as the unsigned threshold, from 0 to 2^63, that 63-bit subject hashes must fall below
+final class RolloutImpl implements Rollout {
+  private static final double SCALE = 0x1p63;
+  private static final long ALL = Long.MIN_VALUE; // 2^63 as an unsigned value
+
+  private final long threshold;
+
+  RolloutImpl(final long threshold) {
+    this.threshold = threshold;
+  }
+
+  static @NotNull RolloutImpl percentage(final double percentage) {
+    if (!(percentage >= 0 && percentage <= 100)) throw new IllegalArgumentException("Percentage must be between 0 and 100, was " + percentage);
+    return new RolloutImpl(percentage == 100 ? ALL : (long) (percentage / 100 * SCALE));
+  }
+
+  static @NotNull RolloutImpl buckets(final long enabled, final long total) {
+    if (total <= 0) throw new IllegalArgumentException("Total buckets must be positive, was " + total);
+    if (enabled < 0 || enabled > total) throw new IllegalArgumentException("Enabled buckets must be between 0 and " + total + ", was " + enabled);
+    if (enabled == total) return new RolloutImpl(ALL);
+    return new RolloutImpl(BigInteger.valueOf(enabled).shiftLeft(Long.SIZE - 1).divide(BigInteger.valueOf(total)).longValue());
+  }
+
+  // whether a threshold is one a rollout can have
+  static boolean valid(final long threshold) {
+    return threshold >= 0 || threshold == ALL;
+  }
+
+  long threshold() {
+    return this.threshold;
+  }
+
+  @Override
+  public double percentage() {
+    return this.threshold == ALL ? 100 : this.threshold / SCALE * 100;
+  }
+
+  @Override
+  public boolean equals(final @Nullable Object other) {
+    if (this == other) return true;
+    if (other == null || this.getClass() != other.getClass()) return false;
+    return this.threshold == ((RolloutImpl) other).threshold;
+  }
+
+  @Override
+  public int hashCode() {
+    return Long.hashCode(this.threshold);
+  }
+
+  @Override
+  public String toString() {
+    return this.getClass().getSimpleName() + "{" +
+      "percentage=" + this.percentage() +
+      '}';
+  }
+}
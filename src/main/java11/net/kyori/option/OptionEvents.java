@@ -0,0 +1,139 @@
+/*
+ * This file is part of option, licensed under the MIT License.
+ *
+ * Copyright (c) 2023 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.option;
+
+import java.util.Optional;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import org.jetbrains.annotations.Nullable;
+
+// Java Flight Recorder events for state construction, only emitted when metrics are enabled.
+// jdk.jfr is an optional module, so rather than requiring it this module reads it at runtime when it is present.
+final class OptionEvents {
+  private static final boolean AVAILABLE = OptionMetricsImpl.ENABLED && readJfr();
+
+  private OptionEvents() {
+  }
+
+  private static boolean readJfr() {
+    final Optional<Module> jfr = ModuleLayer.boot().findModule("jdk.jfr");
+    jfr.ifPresent(OptionEvents.class.getModule()::addReads);
+    return jfr.isPresent();
+  }
+
+  // each begin method returns an in-progress event, or null if the event is not being recorded
+
+  static @Nullable Object beginBuild() {
+    return AVAILABLE ? begin(new Build()) : null;
+  }
+
+  static void commitBuild(final @Nullable Object event, final OptionStateImpl state) {
+    final Build build = (Build) end(event);
+    if (build == null) return;
+    build.layout = state.getClass().getSimpleName();
+    build.size = state.size();
+    build.commit();
+  }
+
+  static @Nullable Object beginFlatten() {
+    return AVAILABLE ? begin(new Flatten()) : null;
+  }
+
+  static void commitFlatten(final @Nullable Object event, final int versions, final int size) {
+    final Flatten flatten = (Flatten) end(event);
+    if (flatten == null) return;
+    flatten.versions = versions;
+    flatten.size = size;
+    flatten.commit();
+  }
+
+  static @Nullable Object beginVersionLookup() {
+    return AVAILABLE ? begin(new VersionLookup()) : null;
+  }
+
+  static void commitVersionLookup(final @Nullable Object event, final int version, final int resolvedVersion) {
+    final VersionLookup lookup = (VersionLookup) end(event);
+    if (lookup == null) return;
+    lookup.version = version;
+    lookup.resolvedVersion = resolvedVersion;
+    lookup.commit();
+  }
+
+  // takes Object so that verifying this class doesn't load event classes before the read edge is added
+  private static @Nullable Event begin(final Object event) {
+    final Event started = (Event) event;
+    if (!started.isEnabled()) return null;
+    started.begin();
+    return started;
+  }
+
+  // the event if it should be committed, or null
+  private static @Nullable Event end(final @Nullable Object event) {
+    if (event == null) return null;
+    final Event ended = (Event) event;
+    ended.end();
+    return ended.shouldCommit() ? ended : null;
+  }
+
+  @Name("net.kyori.option.Build")
+  @Label("Option State Build")
+  @Category("Kyori Option")
+  static final class Build extends Event {
+    @Label("Layout")
+    String layout;
+
+    @Label("Size")
+    @Description("Number of option values in the state")
+    int size;
+  }
+
+  @Name("net.kyori.option.Flatten")
+  @Label("Versioned Option State Flatten")
+  @Category("Kyori Option")
+  static final class Flatten extends Event {
+    @Label("Versions")
+    int versions;
+
+    @Label("Size")
+    @Description("Number of option values at the newest version")
+    int size;
+  }
+
+  @Name("net.kyori.option.VersionLookup")
+  @Label("Option State Version Lookup")
+  @Category("Kyori Option")
+  @Enabled(false) // frequent, and cheap enough that recording would dominate the cost
+  static final class VersionLookup extends Event {
+    @Label("Version")
+    int version;
+
+    @Label("Resolved Version")
+    @Description("Newest declared version at or below the requested one")
+    int resolvedVersion;
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ * This file is part of option, licensed under the MIT License.
+ *
+ * Copyright (c) 2023 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.option;
+
+import java.nio.ByteBuffer;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BinaryOptionCodecTest {
+  enum Level {
+    LOW, MEDIUM, HIGH
+  }
+
+  @SuppressWarnings("unchecked")
+  private static final Option<Boolean>[] FLAGS = new Option[12];
+  private static final Option<Level> LEVEL = Option.enumOption("option:test/binary_level", Level.class, Level.LOW);
+  private static final Option<Integer> INT = Option.intOption("option:test/binary_int", 0);
+  private static final Option<Long> LONG = Option.longOption("option:test/binary_long", 0);
+  private static final Option<Double> DOUBLE = Option.doubleOption("option:test/binary_double", 0);
+  private static final Option<Rollout> ROLLOUT = Option.rolloutOption("option:test/binary_rollout", Rollout.percentage(0));
+  private static final Option<Boolean> UNREGISTERED = Option.booleanOption("option:test/binary_unregistered", false);
+  private static final BinaryOptionCodec CODEC;
+
+  static {
+    final OptionRegistry registry = OptionRegistry.optionRegistry()
+      .register(LEVEL)
+      .register(INT)
+      .register(LONG)
+      .register(DOUBLE)
+      .register(ROLLOUT);
+    for (int i = 0; i < FLAGS.length; i++) {
+      FLAGS[i] = Option.booleanOption("option:test/binary_flag_" + i, false);
+      registry.register(FLAGS[i]);
+    }
+    CODEC = BinaryOptionCodec.binaryOptionCodec(registry.freeze());
+  }
+
+  private static OptionState roundTrip(final OptionState state) {
+    final ByteBuffer buffer = ByteBuffer.allocate(CODEC.encodedSize(state));
+    CODEC.encode(state, buffer);
+    assertFalse(buffer.hasRemaining());
+    buffer.flip();
+    final OptionState decoded = CODEC.decode(buffer);
+    assertFalse(buffer.hasRemaining());
+    return decoded;
+  }
+
+  @Test
+  void testRoundTrip() {
+    final OptionState.Builder builder = OptionState.optionState()
+      .value(LEVEL, Level.HIGH);
+    for (int i = 0; i < FLAGS.length; i++) {
+      builder.value(FLAGS[i], i % 3 == 0);
+    }
+    final OptionState state = builder.build();
+
+    assertEquals(state, roundTrip(state));
+    assertEquals(OptionState.emptyOptionState(), roundTrip(OptionState.emptyOptionState()));
+  }
+
+  @Test
+  void testNumericRoundTrip() {
+    final OptionState state = OptionState.optionState()
+      .intValue(INT, -3)
+      .longValue(LONG, Long.MIN_VALUE)
+      .doubleValue(DOUBLE, Math.PI)
+      .value(ROLLOUT, Rollout.percentage(100))
+      .build();
+
+    assertEquals(state, roundTrip(state));
+    final OptionState small = OptionState.optionState()
+      .intValue(INT, -3)
+      .build();
+    assertEquals(2, CODEC.encodedSize(small) - CODEC.encodedSize(OptionState.emptyOptionState())); // index and one zigzag byte
+  }
+
+  @Test
+  void testCompactBooleans() {
+    final OptionState.Builder builder = OptionState.optionState();
+    for (final Option<Boolean> flag : FLAGS) {
+      builder.value(flag, true);
+    }
+
+    // counts, 12 one-byte indexes and two bytes of values
+    assertEquals(16, CODEC.encodedSize(builder.build()));
+  }
+
+  @Test
+  void testVersionedRoundTrip() {
+    final OptionState.Versioned versioned = OptionState.versionedOptionState()
+      .version(-5, b -> b
+        .value(FLAGS[0], true)
+        .value(LEVEL, Level.MEDIUM))
+      .version(3, b -> b
+        .value(FLAGS[0], false))
+      .version(700, b -> b
+        .value(LEVEL, Level.HIGH))
+      .build();
+    final ByteBuffer buffer = ByteBuffer.allocate(CODEC.encodedVersionedSize(versioned));
+    CODEC.encodeVersioned(versioned, buffer);
+    buffer.flip();
+
+    final OptionState.Versioned decoded = CODEC.decodeVersioned(buffer);
+    assertEquals(versioned.childStates(), decoded.childStates());
+    assertEquals(Level.MEDIUM, decoded.at(4).value(LEVEL));
+    assertFalse(decoded.at(4).value(FLAGS[0]));
+  }
+
+  @Test
+  void testUnregisteredOption() {
+    final OptionState state = OptionState.optionState()
+      .value(UNREGISTERED, true)
+      .build();
+
+    assertThrows(IllegalArgumentException.class, () -> CODEC.encodedSize(state));
+    assertThrows(IllegalArgumentException.class, () -> BinaryOptionCodec.binaryOptionCodec(OptionRegistry.optionRegistry()));
+  }
+}
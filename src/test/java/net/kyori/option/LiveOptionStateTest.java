@@ -0,0 +1,120 @@
+/*
+ * This file is part of option, licensed under the MIT License.
+ *
+ * Copyright (c) 2023 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.option;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LiveOptionStateTest {
+  private static final Option<Boolean> ONE = Option.booleanOption("option:test/live_one", false);
+  private static final Option<Boolean> TWO = Option.booleanOption("option:test/live_two", false);
+  private static final Option<Boolean> THREE = Option.booleanOption("option:test/live_three", true);
+  private static final Option<Integer> LIMIT = Option.intOption("option:test/live_limit", 4);
+
+  @Test
+  void testUpdate() {
+    final OptionState initial = OptionState.optionState()
+      .value(ONE, true)
+      .build();
+    final LiveOptionState live = OptionState.live(initial);
+
+    assertTrue(live.value(ONE));
+    assertSame(initial, live.snapshot());
+
+    final OptionState updated = live.update(b -> b.value(TWO, true));
+    assertSame(updated, live.snapshot());
+    assertTrue(live.value(ONE));
+    assertTrue(live.value(TWO));
+    assertTrue(initial.has(ONE));
+    assertFalse(initial.has(TWO));
+  }
+
+  @Test
+  void testListenersReceiveChanges() {
+    final LiveOptionState live = OptionState.live(OptionState.emptyOptionState());
+    final List<Set<Option<?>>> batches = new ArrayList<>();
+    live.addListener((state, changed) -> batches.add(new HashSet<>(changed)));
+
+    live.update(b -> b.value(ONE, true));
+    live.update(b -> b.value(ONE, true)); // no change
+    live.set(OptionState.optionState().value(TWO, true).build());
+
+    assertEquals(Arrays.asList(
+      new HashSet<>(Arrays.asList(ONE)),
+      new HashSet<>(Arrays.asList(ONE, TWO))
+    ), batches);
+  }
+
+  @Test
+  void testBurstsAreCoalesced() {
+    final Queue<Runnable> tasks = new ArrayDeque<>();
+    final LiveOptionState live = OptionState.live(OptionState.emptyOptionState(), tasks::add);
+    final List<Set<Option<?>>> batches = new ArrayList<>();
+    live.addListener((state, changed) -> batches.add(new HashSet<>(changed)));
+
+    live.update(b -> b.value(ONE, true));
+    live.update(b -> b.value(TWO, true));
+    live.update(b -> b.value(THREE, false));
+    assertEquals(1, tasks.size());
+
+    tasks.remove().run();
+    assertEquals(Arrays.asList(new HashSet<>(Arrays.asList(ONE, TWO, THREE))), batches);
+
+    live.update(b -> b.value(ONE, false));
+    assertEquals(1, tasks.size());
+  }
+
+  @Test
+  void testConstant() throws Throwable {
+    final LiveOptionState live = OptionState.live(OptionState.optionState().value(LIMIT, 8).build());
+    final MethodHandle one = live.constant(ONE);
+    final MethodHandle limit = live.constant(LIMIT);
+    assertSame(one, live.constant(ONE));
+    assertEquals(MethodType.methodType(boolean.class), one.type());
+    assertEquals(MethodType.methodType(int.class), limit.type());
+    assertFalse((boolean) one.invokeExact());
+    assertEquals(8, (int) limit.invokeExact());
+
+    live.update(b -> b.value(ONE, true));
+    assertTrue((boolean) one.invokeExact());
+    assertEquals(8, (int) limit.invokeExact());
+
+    live.set(OptionState.emptyOptionState());
+    assertFalse((boolean) one.invokeExact());
+    assertEquals(4, (int) limit.invokeExact());
+  }
+}
@@ -0,0 +1,184 @@
+/*
+ * This file is part of option, licensed under the MIT License.
+ *
+ * Copyright (c) 2023 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.option;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedOptionStateTest {
+  enum Mode {
+    OFF, ON, AUTO
+  }
+
+  private static final Option<Boolean> FLAG = Option.booleanOption("option:test/mapped_flag", false);
+  private static final Option<Mode> MODE = Option.enumOption("option:test/mapped_mode", Mode.class, Mode.AUTO);
+  private static final Option<Long> LIMIT = Option.longOption("option:test/mapped_limit", 10);
+  private static final Option<Double> RATE = Option.doubleOption("option:test/mapped_rate", 1);
+  private static final OptionRegistry REGISTRY = OptionRegistry.optionRegistry()
+    .register(FLAG)
+    .register(MODE)
+    .register(LIMIT)
+    .register(RATE)
+    .freeze();
+
+  @Test
+  void testPublishAndRead() throws IOException {
+    final Path file = Files.createTempFile("options", ".bin");
+    try (final MappedOptionState.Writer writer = MappedOptionState.writer(file, REGISTRY)) {
+      final MappedOptionState reader = MappedOptionState.open(file, REGISTRY);
+      assertEquals(0, reader.generation());
+      assertFalse(reader.has(FLAG));
+      assertEquals(Mode.AUTO, reader.value(MODE));
+
+      final OptionState published = OptionState.optionState()
+        .value(FLAG, true)
+        .value(MODE, Mode.ON)
+        .build();
+      assertEquals(1, writer.publish(published));
+      assertTrue(reader.value(FLAG));
+      assertEquals(Mode.ON, reader.value(MODE));
+      assertEquals(published, reader.snapshot());
+
+      writer.publish(OptionState.optionState().value(MODE, Mode.OFF).build());
+      assertEquals(2, reader.generation());
+      assertFalse(reader.has(FLAG));
+      assertEquals(Mode.OFF, writer.state().value(MODE));
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test
+  void testNumericValues() throws IOException {
+    final Path file = Files.createTempFile("options", ".bin");
+    try (final MappedOptionState.Writer writer = MappedOptionState.writer(file, REGISTRY)) {
+      final MappedOptionState reader = MappedOptionState.open(file, REGISTRY);
+      assertEquals(10, reader.longValue(LIMIT));
+      assertEquals(1, reader.doubleValue(RATE));
+
+      final OptionState published = OptionState.optionState()
+        .longValue(LIMIT, -1)
+        .doubleValue(RATE, -0.25)
+        .build();
+      writer.publish(published);
+      assertTrue(reader.has(LIMIT));
+      assertEquals(-1, reader.longValue(LIMIT));
+      assertEquals(Long.valueOf(-1), reader.value(LIMIT));
+      assertEquals(-0.25, reader.doubleValue(RATE));
+      assertEquals(published, reader.snapshot());
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test
+  void testNullDefault() throws IOException {
+    final Option<Mode> unset = Option.enumOption("option:test/mapped_null_default", Mode.class, null);
+    final OptionRegistry registry = OptionRegistry.optionRegistry()
+      .register(unset)
+      .register(MODE)
+      .freeze();
+    final Path file = Files.createTempFile("options", ".bin");
+    try (final MappedOptionState.Writer writer = MappedOptionState.writer(file, registry)) {
+      final MappedOptionState reader = MappedOptionState.open(file, registry);
+      assertNull(reader.value(unset));
+
+      writer.publish(OptionState.optionState().value(MODE, Mode.ON).build());
+      assertFalse(reader.has(unset));
+      assertNull(reader.value(unset));
+      assertNull(reader.snapshot().value(unset));
+
+      writer.publish(OptionState.optionState().value(unset, Mode.OFF).build());
+      assertEquals(Mode.OFF, reader.value(unset));
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test
+  void testSingleWriter() throws IOException {
+    final Path file = Files.createTempFile("options", ".bin");
+    try (final MappedOptionState.Writer writer = MappedOptionState.writer(file, REGISTRY)) {
+      assertThrows(IOException.class, () -> MappedOptionState.writer(file, REGISTRY));
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test
+  void testStalledWrite() throws IOException {
+    final Path file = Files.createTempFile("options", ".bin");
+    try {
+      try (final MappedOptionState.Writer writer = MappedOptionState.writer(file, REGISTRY)) {
+        writer.publish(OptionState.optionState()
+          .value(FLAG, true)
+          .value(MODE, Mode.ON)
+          .build());
+      }
+      try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+        final ByteBuffer sequence = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.nativeOrder());
+        sequence.putLong(0, 3).rewind(); // a writer stopped while publishing the second generation
+        channel.write(sequence, 24);
+      }
+
+      final MappedOptionState reader = MappedOptionState.open(file, REGISTRY);
+      assertEquals(1, reader.generation());
+      assertFalse(reader.value(FLAG));
+      assertEquals(Mode.AUTO, reader.value(MODE));
+      assertEquals(10L, reader.longValue(LIMIT));
+      assertEquals(OptionState.emptyOptionState(), reader.snapshot());
+
+      try (final MappedOptionState.Writer writer = MappedOptionState.writer(file, REGISTRY)) { // a new writer publishes an empty state
+        assertEquals(2, reader.generation());
+        writer.publish(OptionState.optionState().value(FLAG, true).build());
+        assertTrue(reader.value(FLAG));
+      }
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test
+  void testDifferentRegistry() throws IOException {
+    final Path file = Files.createTempFile("options", ".bin");
+    try (final MappedOptionState.Writer writer = MappedOptionState.writer(file, REGISTRY)) {
+      final OptionRegistry other = OptionRegistry.optionRegistry().register(FLAG).freeze();
+      assertThrows(IOException.class, () -> MappedOptionState.open(file, other));
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+}
@@ -0,0 +1,195 @@
+/*
+ * This file is part of option, licensed under the MIT License.
+ *
+ * Copyright (c) 2023 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.option;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OptionCodecsTest {
+  enum Mode {
+    FAST, SAFE
+  }
+
+  private static final Option<Boolean> FLAG = Option.booleanOption("codecs.flag", false);
+  private static final Option<Mode> MODE = Option.enumOption("codecs.mode", Mode.class, Mode.SAFE);
+  private static final Option<Integer> THREADS = Option.intOption("codecs.threads", 1);
+  private static final Option<Double> RATIO = Option.doubleOption("codecs.ratio", 0.5);
+  private static final Option<Rollout> ROLLOUT = Option.rolloutOption("codecs.rollout", Rollout.percentage(0));
+  private static final OptionRegistry REGISTRY = OptionRegistry.optionRegistry()
+    .register(FLAG)
+    .register(MODE)
+    .register(THREADS)
+    .register(RATIO)
+    .register(ROLLOUT)
+    .freeze();
+
+  @Test
+  void testLoadWithPrefix() {
+    final OptionCodecs codecs = OptionCodecs.optionCodecs(REGISTRY)
+      .prefix("app.")
+      .build();
+    final Properties properties = new Properties();
+    properties.setProperty("app.codecs.flag", "TRUE");
+    properties.setProperty("app.codecs.mode", "fast");
+    properties.setProperty("java.version", "unrelated");
+
+    final OptionState state = OptionState.optionState()
+      .values(properties, codecs)
+      .build();
+
+    assertTrue(state.value(FLAG));
+    assertEquals(Mode.FAST, state.value(MODE));
+    assertSame(MODE, codecs.option("app.codecs.mode"));
+  }
+
+  @Test
+  void testNumericValues() {
+    final OptionCodecs codecs = OptionCodecs.optionCodecs(REGISTRY).build();
+    final Map<String, String> source = new HashMap<>();
+    source.put("codecs.threads", " 8");
+    source.put("codecs.ratio", "0.75");
+
+    final OptionState state = OptionState.optionState()
+      .values(source, codecs)
+      .build();
+    assertEquals(8, state.intValue(THREADS));
+    assertEquals(0.75, state.doubleValue(RATIO));
+
+    source.put("codecs.rollout", "12.5%");
+    assertEquals(Rollout.percentage(12.5), OptionState.optionState().values(source, codecs).build().value(ROLLOUT));
+    source.put("codecs.rollout", "1/8");
+    assertEquals(Rollout.percentage(12.5), OptionState.optionState().values(source, codecs).build().value(ROLLOUT));
+
+    source.put("codecs.threads", "many");
+    assertThrows(IllegalArgumentException.class, () -> OptionState.optionState().values(source, codecs));
+  }
+
+  @Test
+  void testUnrelatedKeysSkipped() {
+    final OptionCodecs codecs = OptionCodecs.optionCodecs(REGISTRY).build();
+    final Map<String, String> source = new HashMap<>();
+    source.put("codecs.mode", "FAST");
+    source.put("java.version", "17");
+    source.put("user.home", "/home/example");
+
+    final OptionState state = OptionState.optionState()
+      .values(source, codecs)
+      .build();
+    assertEquals(Mode.FAST, state.value(MODE));
+
+    final Map<Object, Object> properties = new HashMap<>(System.getProperties());
+    properties.put("codecs.flag", "true");
+    assertTrue(OptionState.optionState().values(properties, codecs).build().value(FLAG));
+  }
+
+  @Test
+  void testEnvironmentStyle() {
+    final OptionCodecs codecs = OptionCodecs.optionCodecs(REGISTRY)
+      .prefix("app.")
+      .environmentStyle()
+      .build();
+    final Map<String, String> environment = new HashMap<>();
+    environment.put("APP_CODECS_FLAG", "true");
+    environment.put("PATH", "/usr/bin");
+
+    final OptionState state = OptionState.optionState()
+      .values(environment, codecs)
+      .build();
+
+    assertTrue(state.value(FLAG));
+    assertFalse(state.has(MODE));
+  }
+
+  @Test
+  void testFailuresCollected() {
+    final OptionCodecs codecs = OptionCodecs.optionCodecs(REGISTRY)
+      .prefix("app.")
+      .build();
+    final Map<String, String> source = new HashMap<>();
+    source.put("app.codecs.flag", "yes");
+    source.put("app.codecs.mode", "FAST");
+    source.put("app.codecs.unknown", "1");
+    source.put("codecs.unknown", "1");
+    final List<OptionCodecs.Failure> failures = new ArrayList<>();
+
+    final OptionState state = OptionState.optionState()
+      .values(source, codecs, failures::add)
+      .build();
+
+    assertEquals(Mode.FAST, state.value(MODE));
+    assertFalse(state.has(FLAG));
+    assertEquals(2, failures.size());
+    assertThrows(IllegalArgumentException.class, () -> OptionState.optionState().values(source, codecs));
+  }
+
+  @Test
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  void testFailingCodecsCollected() {
+    final OptionCodecs codecs = OptionCodecs.optionCodecs(REGISTRY)
+      .codec(FLAG, value -> null)
+      .codec(MODE, value -> {
+        throw new IllegalStateException("broken");
+      })
+      .codec((Option) THREADS, value -> value)
+      .build();
+    final Map<String, String> source = new HashMap<>();
+    source.put("codecs.flag", "true");
+    source.put("codecs.mode", "FAST");
+    source.put("codecs.threads", "8");
+    source.put("codecs.ratio", "0.25");
+    final List<OptionCodecs.Failure> failures = new ArrayList<>();
+
+    final OptionState state = OptionState.optionState()
+      .values(source, codecs, failures::add)
+      .build();
+
+    assertEquals(0.25, state.doubleValue(RATIO));
+    assertFalse(state.has(FLAG));
+    assertFalse(state.has(MODE));
+    assertFalse(state.has(THREADS));
+    assertEquals(3, failures.size());
+  }
+
+  @Test
+  void testCustomCodec() {
+    final OptionCodecs codecs = OptionCodecs.optionCodecs(REGISTRY)
+      .codec(FLAG, value -> value.equals("on"))
+      .build();
+
+    assertTrue(codecs.decode(FLAG, "on"));
+    assertEquals(Mode.SAFE, codecs.decode(MODE, "Safe"));
+    assertNull(codecs.option("app.codecs.flag"));
+  }
+}
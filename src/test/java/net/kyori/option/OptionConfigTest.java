@@ -23,11 +23,24 @@
  */
 package net.kyori.option;
 
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class OptionConfigTest {
@@ -36,9 +49,34 @@ class OptionConfigTest {
     ONE, TWO, THREE
   }
 
+  // too many constants to be packed, so values are held by reference
+  enum WideEnum {
+    W0, W1, W2, W3, W4, W5, W6, W7, W8, W9, W10, W11, W12, W13, W14, W15,
+    W16, W17, W18, W19, W20, W21, W22, W23, W24, W25, W26, W27, W28, W29, W30, W31,
+    W32, W33, W34, W35, W36, W37, W38, W39, W40, W41, W42, W43, W44, W45, W46, W47,
+    W48, W49, W50, W51, W52, W53, W54, W55, W56, W57, W58, W59, W60, W61, W62, W63,
+    W64, W65, W66, W67, W68, W69, W70, W71, W72, W73, W74, W75, W76, W77, W78, W79,
+    W80, W81, W82, W83, W84, W85, W86, W87, W88, W89, W90, W91, W92, W93, W94, W95,
+    W96, W97, W98, W99, W100, W101, W102, W103, W104, W105, W106, W107, W108, W109, W110, W111,
+    W112, W113, W114, W115, W116, W117, W118, W119, W120, W121, W122, W123, W124, W125, W126, W127,
+    W128, W129, W130, W131, W132, W133, W134, W135, W136, W137, W138, W139, W140, W141, W142, W143,
+    W144, W145, W146, W147, W148, W149, W150, W151, W152, W153, W154, W155, W156, W157, W158, W159,
+    W160, W161, W162, W163, W164, W165, W166, W167, W168, W169, W170, W171, W172, W173, W174, W175,
+    W176, W177, W178, W179, W180, W181, W182, W183, W184, W185, W186, W187, W188, W189, W190, W191,
+    W192, W193, W194, W195, W196, W197, W198, W199, W200, W201, W202, W203, W204, W205, W206, W207,
+    W208, W209, W210, W211, W212, W213, W214, W215, W216, W217, W218, W219, W220, W221, W222, W223,
+    W224, W225, W226, W227, W228, W229, W230, W231, W232, W233, W234, W235, W236, W237, W238, W239,
+    W240, W241, W242, W243, W244, W245, W246, W247, W248, W249, W250, W251, W252, W253, W254, W255,
+    W256
+  }
+
   private static final Option<Boolean> ONE = Option.booleanOption(key("one"), true);
   private static final Option<Boolean> TWO = Option.booleanOption(key("two"), false);
   private static final Option<TestEnum> ENUM_FLAG = Option.enumOption(key("enum_flag"), TestEnum.class, TestEnum.ONE);
+  private static final Option<Integer> INT = Option.intOption(key("int"), 4);
+  private static final Option<Long> LONG = Option.longOption(key("long"), Long.MAX_VALUE);
+  private static final Option<Double> DOUBLE = Option.doubleOption(key("double"), 0.5);
+  private static final Option<WideEnum> WIDE = Option.enumOption(key("wide"), WideEnum.class, WideEnum.W0);
 
   @Test
   void testEmpty() {
@@ -86,6 +124,22 @@ class OptionConfigTest {
     assertFalse(set.value(ONE));
   }
 
+  @Test
+  void testPackedValues() {
+    final OptionState set = OptionState.optionState()
+      .value(TWO, true)
+      .value(ENUM_FLAG, TestEnum.THREE)
+      .build();
+
+    assertTrue(set.booleanValue(ONE));
+    assertTrue(set.booleanValue(TWO));
+    assertEquals(TestEnum.THREE, set.value(ENUM_FLAG));
+    assertEquals(set, OptionState.optionState()
+      .value(ENUM_FLAG, TestEnum.THREE)
+      .value(TWO, true)
+      .build());
+  }
+
   @Test
   void testBuilderFromExisting() {
     final OptionState existing = OptionState.optionState()
@@ -100,6 +154,72 @@ class OptionConfigTest {
     assertEquals(existing, updated);
   }
 
+  @Test
+  @SuppressWarnings("unchecked")
+  void testDenseAndSparseLayouts() {
+    final Option<?>[] many = new Option<?>[200];
+    for (int i = 0; i < many.length; i++) {
+      many[i] = Option.booleanOption(key("layout_" + i), false);
+    }
+    final Option<Boolean> last = (Option<Boolean>) many[many.length - 1];
+
+    final OptionState sparse = OptionState.optionState()
+      .value(ONE, false)
+      .value(last, true)
+      .build();
+    final OptionState.Builder denseBuilder = OptionState.optionState();
+    for (final Option<?> option : many) {
+      denseBuilder.value((Option<Boolean>) option, true);
+    }
+    final OptionState dense = denseBuilder.build();
+
+    assertTrue(sparse.has(last));
+    assertTrue(sparse.value(last));
+    assertFalse(sparse.has(many[0]));
+    assertFalse(sparse.value(ONE));
+    assertTrue(dense.has(many[0]));
+    assertFalse(dense.has(ONE));
+    assertTrue(dense.value(ONE));
+
+    final OptionState copied = OptionState.optionState()
+      .values(sparse)
+      .build();
+    assertEquals(sparse, copied);
+    assertEquals(sparse.hashCode(), copied.hashCode());
+  }
+
+  @Test
+  void testUnpackedOnlyLayout() {
+    final OptionState state = OptionState.optionState()
+      .value(WIDE, WideEnum.W256)
+      .build();
+
+    assertTrue(state instanceof OptionStateImpl.Dense);
+    assertTrue(state.has(WIDE));
+    assertSame(WideEnum.W256, state.value(WIDE));
+    assertFalse(state.has(ONE));
+  }
+
+  @Test
+  void testInterned() {
+    final OptionState first = OptionState.optionState()
+      .value(ONE, false)
+      .value(ENUM_FLAG, TestEnum.TWO)
+      .build();
+    final OptionState second = OptionState.optionState()
+      .value(ENUM_FLAG, TestEnum.TWO)
+      .value(ONE, false)
+      .build();
+    final OptionState other = OptionState.optionState()
+      .value(ONE, true)
+      .build();
+
+    assertNotSame(first, second);
+    assertEquals(first.hashCode(), second.hashCode());
+    assertSame(first.interned(), second.interned());
+    assertNotEquals(first.interned(), other.interned());
+  }
+
   @Test
   void testVersionedBaseLevel() {
     final OptionState.Versioned versioned = OptionState.versionedOptionState()
@@ -171,6 +291,477 @@ class OptionConfigTest {
     assertEquals(true, versioned.value(TWO));
   }
 
+  @Test
+  void testVersionViewsShared() {
+    final OptionState.Versioned versioned = OptionState.versionedOptionState()
+      .version(0, b -> b
+        .value(TWO, true))
+      .version(3, b -> b
+        .value(ONE, false))
+      .build();
+
+    assertSame(versioned.at(3), versioned.at(4));
+    assertSame(versioned, versioned.at(Integer.MAX_VALUE));
+    assertEquals(2, versioned.at(Integer.MAX_VALUE).childStates().size());
+
+    final OptionState.Versioned before = versioned.at(-1);
+    assertFalse(before.has(TWO));
+    assertTrue(before.childStates().isEmpty());
+    assertEquals(true, before.at(0).value(TWO));
+  }
+
+  @Test
+  void testUnchangedVersionsShareState() {
+    final OptionState.Versioned versioned = OptionState.versionedOptionState()
+      .version(0, b -> b
+        .value(TWO, true)
+        .value(ENUM_FLAG, TestEnum.THREE))
+      .version(1, b -> b
+        .value(TWO, true))
+      .version(2, b -> b
+        .value(ENUM_FLAG, TestEnum.TWO))
+      .build();
+
+    assertSame(OptionStateImpl.flat(versioned.at(0)), OptionStateImpl.flat(versioned.at(1)));
+    assertEquals(TestEnum.TWO, versioned.value(ENUM_FLAG));
+    assertEquals(TestEnum.THREE, versioned.at(1).value(ENUM_FLAG));
+    assertEquals(OptionState.optionState()
+      .value(TWO, true)
+      .value(ENUM_FLAG, TestEnum.TWO)
+      .build(), OptionState.optionState().values(versioned).build());
+  }
+
+  @Test
+  void testDiff() {
+    final OptionState before = OptionState.optionState()
+      .value(ONE, true)
+      .value(ENUM_FLAG, TestEnum.ONE)
+      .build();
+    final OptionState after = OptionState.optionState()
+      .value(ONE, true)
+      .value(TWO, false)
+      .value(ENUM_FLAG, TestEnum.THREE)
+      .build();
+
+    assertTrue(before.diff(before).isEmpty());
+    final OptionState.Diff diff = before.diff(after);
+    assertEquals(2, diff.size());
+    assertTrue(diff.changed(TWO));
+    assertTrue(diff.changed(ENUM_FLAG));
+    assertFalse(diff.changed(ONE));
+    for (final OptionState.Diff.Change<?> change : diff) {
+      if (change.option() == TWO) {
+        assertNull(change.oldValue());
+        assertEquals(false, change.newValue());
+      } else {
+        assertEquals(TestEnum.ONE, change.oldValue());
+        assertEquals(TestEnum.THREE, change.newValue());
+      }
+    }
+
+    final OptionState.Diff reverse = after.diff(before);
+    assertEquals(2, reverse.size());
+    assertTrue(reverse.changed(TWO));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void testLargeDiff() {
+    final Option<Integer>[] options = new Option[100];
+    final OptionState.Builder before = OptionState.optionState();
+    final OptionState.Builder after = OptionState.optionState();
+    for (int i = 0; i < options.length; i++) {
+      options[i] = Option.intOption(key("diff_" + i), 0);
+      before.intValue(options[i], i);
+      after.intValue(options[i], i % 3 == 0 ? -i : i);
+    }
+
+    final OptionState.Diff diff = before.build().diff(after.build());
+    assertEquals(33, diff.size());
+    for (int i = 0; i < options.length; i++) {
+      assertEquals(i % 3 == 0 && i != 0, diff.changed(options[i]));
+    }
+    assertFalse(diff.changed(ONE));
+  }
+
+  @Test
+  void testChangesBetweenVersions() {
+    final OptionState.Versioned versioned = OptionState.versionedOptionState()
+      .version(0, b -> b
+        .value(ONE, true)
+        .value(ENUM_FLAG, TestEnum.ONE))
+      .version(1, b -> b
+        .value(TWO, true))
+      .version(2, b -> b
+        .value(ONE, true)
+        .value(ENUM_FLAG, TestEnum.TWO))
+      .build();
+
+    assertTrue(versioned.changesBetween(0, 0).isEmpty());
+    final OptionState.Diff changes = versioned.changesBetween(0, 2);
+    assertEquals(2, changes.size());
+    assertTrue(changes.changed(TWO));
+    assertTrue(changes.changed(ENUM_FLAG));
+    assertFalse(changes.changed(ONE));
+    assertEquals(changes, versioned.at(0).diff(versioned.at(2)));
+    assertEquals(versioned.at(2).diff(versioned.at(-1)), versioned.changesBetween(2, -1));
+  }
+
+  @Test
+  void testOverlay() {
+    final OptionState base = OptionState.optionState()
+      .value(ONE, false)
+      .value(ENUM_FLAG, TestEnum.TWO)
+      .build();
+    final OptionState overlay = OptionState.overlay(base, OptionState.optionState()
+      .value(TWO, true)
+      .value(ENUM_FLAG, TestEnum.THREE)
+      .build());
+
+    assertFalse(overlay.booleanValue(ONE));
+    assertTrue(overlay.booleanValue(TWO));
+    assertEquals(TestEnum.THREE, overlay.value(ENUM_FLAG));
+    assertEquals(TestEnum.TWO, base.value(ENUM_FLAG));
+    assertEquals(OptionState.optionState()
+      .values(base)
+      .value(TWO, true)
+      .value(ENUM_FLAG, TestEnum.THREE)
+      .build(), overlay);
+    assertEquals(overlay.hashCode(), OptionState.optionState().values(overlay).build().hashCode());
+    assertSame(base, OptionState.overlay(base, OptionState.emptyOptionState()));
+  }
+
+  @Test
+  void testOverlayFlattened() {
+    final OptionState.Versioned versioned = OptionState.versionedOptionState()
+      .version(0, b -> b
+        .value(ONE, false))
+      .version(1, b -> b
+        .value(ENUM_FLAG, TestEnum.TWO))
+      .build();
+
+    OptionState state = versioned.at(0);
+    for (int i = 0; i < 20; i++) {
+      state = OptionState.overlay(state, OptionState.optionState()
+        .value(TWO, i % 2 == 0)
+        .build());
+    }
+    assertFalse(state.booleanValue(TWO));
+    assertFalse(state.booleanValue(ONE));
+    assertEquals(TestEnum.ONE, state.value(ENUM_FLAG));
+    assertTrue(state.diff(versioned.at(0)).changed(TWO));
+    assertEquals(1, state.diff(versioned.at(0)).size());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void testRightNestedOverlaysFlattened() {
+    final Option<Integer>[] options = new Option[20];
+    OptionState state = OptionState.emptyOptionState();
+    for (int i = 0; i < options.length; i++) {
+      options[i] = Option.intOption(key("nested_" + i), -1);
+      state = OptionState.overlay(OptionState.optionState()
+        .intValue(options[i], i)
+        .intValue(INT, i)
+        .build(), state);
+    }
+
+    assertTrue(nesting(OptionStateImpl.flat(state)) <= 8);
+    for (int i = 0; i < options.length; i++) {
+      assertEquals(i, state.intValue(options[i]));
+    }
+    assertEquals(0, state.intValue(INT));
+
+    final Spliterator<OptionState.Entry<?>> entries = state.stream().spliterator();
+    assertTrue(entries.hasCharacteristics(Spliterator.SIZED));
+    assertEquals(options.length + 1, entries.getExactSizeIfKnown());
+    assertEquals(options.length + 1, state.stream().parallel().count());
+    assertEquals(options.length + 1, state.stream().map(OptionState.Entry::option).distinct().count());
+
+    final OptionState overlay = OptionState.overlay(
+      OptionState.optionState().value(ONE, false).intValue(INT, 1).build(),
+      OptionState.optionState().intValue(INT, 2).value(TWO, true).build()
+    );
+    final Spliterator<OptionState.Entry<?>> rest = overlay.stream().spliterator();
+    assertEquals(3, rest.getExactSizeIfKnown());
+    final Spliterator<OptionState.Entry<?>> overrides = rest.trySplit();
+    assertEquals(2, overrides.getExactSizeIfKnown());
+    assertEquals(1, rest.getExactSizeIfKnown());
+    assertTrue(rest.tryAdvance(entry -> assertSame(ONE, entry.option())));
+    assertFalse(rest.tryAdvance(entry -> { }));
+  }
+
+  private static int nesting(final OptionStateImpl state) {
+    if (!(state instanceof OptionStateImpl.Overlay)) return 0;
+    final OptionStateImpl.Overlay overlay = (OptionStateImpl.Overlay) state;
+    return Math.max(nesting(overlay.parent), nesting(overlay.overrides)) + 1;
+  }
+
+  @Test
+  void testPrimitiveValues() {
+    final OptionState empty = OptionState.emptyOptionState();
+    assertEquals(4, empty.intValue(INT));
+    assertEquals(Long.MAX_VALUE, empty.longValue(LONG));
+    assertEquals(0.5, empty.doubleValue(DOUBLE));
+
+    final OptionState state = OptionState.optionState()
+      .intValue(INT, -1)
+      .longValue(LONG, Long.MIN_VALUE)
+      .doubleValue(DOUBLE, -2.25)
+      .value(TWO, true)
+      .build();
+    assertEquals(-1, state.intValue(INT));
+    assertEquals(Long.MIN_VALUE, state.longValue(LONG));
+    assertEquals(-2.25, state.doubleValue(DOUBLE));
+    assertEquals(Integer.valueOf(-1), state.value(INT));
+    assertTrue(state.booleanValue(TWO));
+
+    final OptionState boxed = OptionState.optionState()
+      .value(INT, -1)
+      .value(LONG, Long.MIN_VALUE)
+      .value(DOUBLE, -2.25)
+      .value(TWO, true)
+      .build();
+    assertEquals(boxed, state);
+    assertEquals(boxed.hashCode(), state.hashCode());
+    assertEquals(state, OptionState.optionState().values(state).build());
+  }
+
+  @Test
+  void testPrimitiveValuesVersioned() {
+    final OptionState.Versioned versioned = OptionState.versionedOptionState()
+      .version(0, b -> b
+        .intValue(INT, 1)
+        .doubleValue(DOUBLE, 1.5))
+      .version(1, b -> b
+        .intValue(INT, 2)
+        .longValue(LONG, 3))
+      .build();
+
+    assertEquals(2, versioned.intValue(INT));
+    assertEquals(3, versioned.longValue(LONG));
+    assertEquals(1.5, versioned.doubleValue(DOUBLE));
+    assertEquals(1, versioned.at(0).intValue(INT));
+    assertEquals(Long.MAX_VALUE, versioned.at(0).longValue(LONG));
+    assertEquals(OptionState.optionState()
+      .intValue(INT, 2)
+      .longValue(LONG, 3)
+      .doubleValue(DOUBLE, 1.5)
+      .build(), OptionState.optionState().values(versioned).build());
+    assertEquals(2, OptionState.overlay(versioned.at(0), versioned.childStates().get(1)).intValue(INT));
+  }
+
+  @Test
+  void testIteration() {
+    final OptionState state = OptionState.optionState()
+      .value(ONE, false)
+      .value(ENUM_FLAG, TestEnum.TWO)
+      .intValue(INT, 9)
+      .build();
+    final Map<Option<?>, Object> values = new HashMap<>();
+    state.forEach(values::put);
+    final Map<Option<?>, Object> expected = new HashMap<>();
+    expected.put(ONE, false);
+    expected.put(ENUM_FLAG, TestEnum.TWO);
+    expected.put(INT, 9);
+    assertEquals(expected, values);
+    assertEquals(expected, state.stream().collect(Collectors.toMap(OptionState.Entry::option, OptionState.Entry::value)));
+    assertTrue(state.stream().spliterator().hasCharacteristics(Spliterator.SIZED | Spliterator.IMMUTABLE));
+
+    @SuppressWarnings("unchecked")
+    final Option<Integer>[] many = new Option[5000];
+    for (int i = 0; i < many.length; i++) {
+      many[i] = Option.intOption(key("iteration_" + i), 0);
+    }
+    final OptionState.Versioned versioned = OptionState.versionedOptionState()
+      .version(1, b -> {
+        for (int i = 0; i < many.length; i++) {
+          b.intValue(many[i], i);
+        }
+      })
+      .version(2, b -> b.intValue(many[0], -1).value(ONE, true))
+      .build();
+    final Spliterator<OptionState.Entry<?>> spliterator = versioned.stream().spliterator();
+    assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.IMMUTABLE));
+    assertEquals(many.length + 1, spliterator.getExactSizeIfKnown());
+    assertEquals(many.length + 1, versioned.stream().parallel().count());
+    assertEquals(
+      (long) many.length * (many.length - 1) / 2 - 1,
+      versioned.stream().parallel().filter(entry -> entry.option().type() == Integer.class).mapToLong(entry -> (Integer) entry.value()).sum()
+    );
+    assertEquals(1, versioned.childStates().get(2).stream().filter(entry -> entry.option() == many[0]).count());
+    assertEquals(2, versioned.childStates().get(2).stream().count());
+  }
+
+  @Test
+  void testMultiVersioned() {
+    final OptionState.MultiVersioned state = OptionState.multiVersionedOptionState(2)
+      .version(new int[] {0, 0}, b -> b.value(ONE, false).value(ENUM_FLAG, TestEnum.ONE))
+      .version(new int[] {5, 0}, b -> b.value(ENUM_FLAG, TestEnum.TWO))
+      .version(new int[] {3, 2}, b -> b.value(ENUM_FLAG, TestEnum.THREE).value(TWO, true))
+      .version(new int[] {10, 1}, b -> b.value(ONE, true))
+      .build();
+    assertEquals(2, state.dimensions());
+
+    assertTrue(state.at(-1, 0).value(ONE)); // below every layer, so the default
+    assertFalse(state.at(-1, 0).has(ONE));
+    assertEquals(TestEnum.ONE, state.at(4, 1).value(ENUM_FLAG));
+    assertEquals(TestEnum.THREE, state.at(4, 2).value(ENUM_FLAG));
+    assertEquals(TestEnum.TWO, state.at(7, 5).value(ENUM_FLAG)); // (5, 0) is applied after (3, 2)
+    assertTrue(state.at(7, 5).value(TWO));
+    assertFalse(state.at(7, 0).value(TWO));
+    assertFalse(state.at(20, 0).value(ONE));
+    assertTrue(state.at(20, 1).value(ONE));
+    assertSame(state.at(4, 3), state.at(new int[] {3, 100}));
+    assertSame(state.at(5, 0), state.at(9, 0)); // unchanged cells are shared
+
+    assertEquals(
+      OptionState.optionState().value(ONE, false).value(ENUM_FLAG, TestEnum.TWO).value(TWO, true).build(),
+      state.at(7, 5)
+    );
+  }
+
+  @Test
+  void testRollout() {
+    final Option<Rollout> rollout = Option.rolloutOption(key("rollout"), Rollout.percentage(0));
+    final Option<Rollout> reseeded = Option.rolloutOption(key("rollout_reseeded"), Rollout.percentage(0), 42);
+    assertFalse(OptionState.emptyOptionState().enabledFor(rollout, 1));
+
+    final OptionState quarter = OptionState.optionState()
+      .value(rollout, Rollout.percentage(25))
+      .value(reseeded, Rollout.percentage(25))
+      .build();
+    final OptionState half = OptionState.optionState()
+      .value(rollout, Rollout.buckets(1, 2))
+      .build();
+    final OptionState all = OptionState.optionState()
+      .value(rollout, Rollout.percentage(100))
+      .build();
+    int enabled = 0;
+    int differ = 0;
+    for (long subject = 0; subject < 100_000; subject++) {
+      final boolean inQuarter = quarter.enabledFor(rollout, subject);
+      if (inQuarter) {
+        enabled++;
+        assertTrue(half.enabledFor(rollout, subject)); // subjects stay enabled as a rollout grows
+      }
+      if (inQuarter != quarter.enabledFor(reseeded, subject)) differ++;
+      assertTrue(all.enabledFor(rollout, subject));
+    }
+    assertTrue(Math.abs(enabled - 25_000) < 1_000, "enabled " + enabled);
+    assertTrue(differ > 10_000, "differ " + differ);
+
+    assertEquals(Rollout.percentage(50), half.value(rollout));
+    assertEquals(25.0, quarter.value(rollout).percentage());
+    assertEquals(OptionState.optionState().value(rollout, Rollout.buckets(1, 4)).build(), OptionState.optionState().value(rollout, Rollout.percentage(25)).build());
+
+    final OptionState.Versioned versioned = OptionState.versionedOptionState()
+      .version(1, b -> b.value(rollout, Rollout.percentage(100)))
+      .build();
+    assertFalse(versioned.at(0).enabledFor(rollout, 7));
+    assertTrue(versioned.at(1).enabledFor(rollout, 7));
+  }
+
+  @Test
+  void testLazyDefault() {
+    final AtomicInteger evaluated = new AtomicInteger();
+    final Option<Integer> lazy = Option.lazyOption(key("lazy"), Integer.class, () -> {
+      if (evaluated.incrementAndGet() == 1) throw new IllegalStateException("not ready");
+      return 12;
+    });
+    final Option<TestEnum> lazyEnum = Option.lazyOption(key("lazy_enum"), TestEnum.class, () -> TestEnum.THREE);
+    assertEquals(0, evaluated.get());
+    assertTrue(lazy.toString().contains("(lazy)"));
+
+    final OptionState state = OptionState.optionState().intValue(lazy, 3).build();
+    assertEquals(3, state.intValue(lazy));
+    assertEquals(0, evaluated.get()); // set values never need the default
+
+    assertThrows(IllegalStateException.class, () -> OptionState.emptyOptionState().intValue(lazy));
+    assertEquals(12, OptionState.emptyOptionState().intValue(lazy));
+    assertEquals(12, (int) OptionState.emptyOptionState().value(lazy));
+    assertEquals(12, (int) lazy.defaultValue());
+    assertEquals(2, evaluated.get());
+    assertEquals(TestEnum.THREE, OptionState.emptyOptionState().value(lazyEnum));
+
+    assertThrows(IllegalArgumentException.class, () -> Option.lazyOption(key("lazy_string"), String.class, () -> ""));
+
+    final Option<Boolean> lazyNull = Option.lazyOption(key("lazy_null"), Boolean.class, () -> null);
+    assertThrows(NullPointerException.class, () -> OptionState.emptyOptionState().booleanValue(lazyNull));
+    assertThrows(NullPointerException.class, () -> OptionState.emptyOptionState().value(lazyNull));
+    final Option<TestEnum> lazyNullEnum = Option.lazyOption(key("lazy_null_enum"), TestEnum.class, () -> null);
+    assertNull(OptionState.emptyOptionState().value(lazyNullEnum));
+  }
+
+  @Test
+  void testDerived() {
+    final AtomicInteger computed = new AtomicInteger();
+    final DerivedOption<Boolean> derived = DerivedOption.derivedOption(ONE, ENUM_FLAG, (one, level) -> {
+      computed.incrementAndGet();
+      return one && level.compareTo(TestEnum.TWO) >= 0;
+    });
+    final DerivedOption<Integer> chained = DerivedOption.derivedOption(state -> state.value(derived) ? state.intValue(INT) : 0);
+
+    final OptionState state = OptionState.optionState()
+      .value(ENUM_FLAG, TestEnum.THREE)
+      .build();
+    assertTrue(state.value(derived));
+    assertTrue(state.value(derived));
+    assertEquals(1, computed.get());
+    assertEquals(4, (int) state.value(chained));
+    assertEquals(1, computed.get());
+
+    final OptionState other = OptionState.optionState()
+      .values(state)
+      .value(ONE, false)
+      .build();
+    assertFalse(other.value(derived));
+    assertEquals(0, (int) other.value(chained));
+    assertEquals(2, computed.get());
+
+    final OptionState.Versioned versioned = OptionState.versionedOptionState()
+      .version(1, b -> b.value(ENUM_FLAG, TestEnum.TWO))
+      .version(2, b -> b.value(ONE, false))
+      .build();
+    assertTrue(versioned.at(1).value(derived));
+    assertFalse(versioned.at(2).value(derived));
+    assertTrue(versioned.at(1).value(derived));
+    assertEquals(4, computed.get());
+
+    final LiveOptionState live = OptionState.live(state);
+    assertTrue(live.value(derived));
+    live.set(other);
+    assertFalse(live.value(derived));
+    assertEquals(4, computed.get());
+  }
+
+  @Test
+  void testDerivedIndexReused() throws InterruptedException {
+    final OptionState state = OptionState.optionState()
+      .value(ONE, false)
+      .build();
+    DerivedOption<String> collected = DerivedOption.derivedOption(ONE, one -> "collected");
+    assertEquals("collected", state.value(collected));
+    final int index = ((DerivedOptionImpl<?>) collected).index();
+    final WeakReference<DerivedOption<String>> reference = new WeakReference<>(collected);
+    collected = null;
+    for (int i = 0; i < 100 && reference.get() != null; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertNull(reference.get());
+
+    final List<DerivedOption<String>> replacements = new ArrayList<>(); // held, so lower freed indexes are used up first
+    DerivedOption<String> replacement = null;
+    for (int i = 0; i < 100 && (replacement == null || ((DerivedOptionImpl<?>) replacement).index() != index); i++) {
+      replacement = DerivedOption.derivedOption(ONE, one -> "replacement"); // the index is freed once the reference is enqueued
+      replacements.add(replacement);
+      if (((DerivedOptionImpl<?>) replacement).index() > index) Thread.sleep(10);
+    }
+    assertEquals(index, ((DerivedOptionImpl<?>) replacement).index());
+    assertEquals("replacement", state.value(replacement));
+  }
+
   private static @NotNull String key(final String path) {
     return "option:test/" + path;
   }
@@ -0,0 +1,176 @@
+/*
+ * This file is part of option, licensed under the MIT License.
+ *
+ * Copyright (c) 2023 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.option;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OptionFileSourceTest {
+  enum Mode {
+    FAST, SAFE
+  }
+
+  private static final Option<Boolean> FLAG = Option.booleanOption("files.flag", false);
+  private static final Option<Mode> MODE = Option.enumOption("files.mode", Mode.class, Mode.SAFE);
+  private static final Option<Integer> THREADS = Option.intOption("files.threads", 1);
+  private static final OptionRegistry REGISTRY = OptionRegistry.optionRegistry()
+    .register(FLAG)
+    .register(MODE)
+    .register(THREADS)
+    .freeze();
+  private static final OptionCodecs CODECS = OptionCodecs.optionCodecs(REGISTRY).build();
+
+  private static void write(final Path file, final String... lines) throws IOException {
+    Files.write(file, Arrays.asList(lines), StandardCharsets.UTF_8);
+  }
+
+  private static void delete(final Path directory) throws IOException {
+    try (final Stream<Path> paths = Files.walk(directory)) {
+      for (final Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+        Files.delete(path);
+      }
+    }
+  }
+
+  @Test
+  void testReloadAppliesChangedKeys() throws IOException {
+    final Path directory = Files.createTempDirectory("option");
+    try {
+      final Path file = directory.resolve("options.properties");
+      write(file, "files.flag=true", "files.threads=4");
+      final List<OptionFileSource.Reload> reloads = new ArrayList<>();
+      try (final OptionFileSource source = OptionFileSource.optionFileSource(file, CODECS).onReload(reloads::add).build()) {
+        final LiveOptionState state = source.state();
+        assertTrue(state.value(FLAG));
+        assertEquals(4, state.intValue(THREADS));
+        assertEquals(2, reloads.get(0).changedKeys());
+
+        write(file, "files.flag=true", "files.threads=8");
+        final OptionFileSource.Reload reload = source.reload();
+        assertEquals(1, reload.changedKeys());
+        assertTrue(reload.failures().isEmpty());
+        assertNull(reload.error());
+        assertEquals(8, state.intValue(THREADS));
+        assertTrue(state.value(FLAG));
+
+        assertEquals(0, source.reload().changedKeys());
+      }
+    } finally {
+      delete(directory);
+    }
+  }
+
+  @Test
+  void testInvalidValueKeepsLastValid() throws IOException {
+    final Path directory = Files.createTempDirectory("option");
+    try {
+      final Path file = directory.resolve("options.properties");
+      write(file, "files.threads=4");
+      try (final OptionFileSource source = OptionFileSource.optionFileSource(file, CODECS).build()) {
+        write(file, "files.threads=many", "files.mode=fast");
+        final OptionFileSource.Reload reload = source.reload();
+        assertEquals(1, reload.failures().size());
+        assertEquals("files.threads", reload.failures().get(0).key());
+        assertEquals(4, source.state().intValue(THREADS));
+        assertEquals(Mode.FAST, source.state().value(MODE));
+      }
+    } finally {
+      delete(directory);
+    }
+  }
+
+  @Test
+  void testRemovedKeysReturnToBase() throws IOException {
+    final Path directory = Files.createTempDirectory("option");
+    try {
+      final Path first = directory.resolve("a.properties");
+      final Path second = directory.resolve("b.properties");
+      write(first, "files.threads=2", "files.flag=true");
+      write(second, "files.threads=3");
+      Files.write(directory.resolve("ignored.txt"), Arrays.asList("files.mode=fast"), StandardCharsets.UTF_8);
+
+      final OptionState base = OptionState.optionState().value(MODE, Mode.SAFE).value(FLAG, false).build();
+      try (final OptionFileSource source = OptionFileSource.optionFileSource(directory, CODECS).base(base).build()) {
+        final LiveOptionState state = source.state();
+        assertEquals(3, state.intValue(THREADS)); // later files override earlier ones
+        assertTrue(state.value(FLAG));
+        assertEquals(Mode.SAFE, state.value(MODE));
+
+        Files.delete(second);
+        write(first, "files.threads=2");
+        source.reload();
+        assertEquals(2, state.intValue(THREADS));
+        assertFalse(state.value(FLAG));
+        assertTrue(state.has(FLAG));
+
+        Files.delete(first);
+        source.reload();
+        assertFalse(state.has(THREADS));
+        assertEquals(base, state.snapshot());
+      }
+    } finally {
+      delete(directory);
+    }
+  }
+
+  @Test
+  void testWatchesChanges() throws IOException, InterruptedException {
+    final Path directory = Files.createTempDirectory("option");
+    try {
+      final Path file = directory.resolve("options.properties");
+      write(file, "files.threads=1");
+      final BlockingQueue<OptionFileSource.Reload> reloads = new ArrayBlockingQueue<>(16);
+      try (final OptionFileSource source = OptionFileSource.optionFileSource(directory, CODECS).debounce(Duration.ofMillis(20)).onReload(reloads::add).build()) {
+        assertNotNull(reloads.poll());
+        write(file, "files.threads=6");
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (source.state().intValue(THREADS) != 6) { // a write may be seen in several parts
+          final OptionFileSource.Reload reload = reloads.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+          assertNotNull(reload);
+          assertTrue(reload.files().contains(file.toAbsolutePath()));
+        }
+      }
+    } finally {
+      delete(directory);
+    }
+  }
+}
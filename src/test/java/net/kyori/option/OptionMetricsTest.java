@@ -0,0 +1,65 @@
+/*
+ * This file is part of option, licensed under the MIT License.
+ *
+ * Copyright (c) 2023 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.option;
+
+import net.kyori.option.OptionConfigTest.TestEnum;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// run by the metricsTest task, which enables metrics through the net.kyori.option.metrics system property
+@Tag("metrics")
+class OptionMetricsTest {
+  private static final Option<Boolean> FLAG = Option.booleanOption("option:test/metrics_flag", false);
+  private static final Option<TestEnum> ENUM = Option.enumOption("option:test/metrics_enum", TestEnum.class, TestEnum.ONE);
+
+  @Test
+  void testCounts() {
+    assertTrue(OptionMetrics.enabled());
+    final OptionState state = OptionState.optionState()
+      .value(FLAG, true)
+      .build();
+
+    state.booleanValue(FLAG);
+    state.value(FLAG);
+    state.value(ENUM);
+
+    final OptionMetrics flag = metrics(FLAG);
+    assertEquals(2, flag.reads());
+    assertEquals(2, flag.hits());
+    assertEquals(0, flag.fallbacks());
+    final OptionMetrics enumMetrics = metrics(ENUM);
+    assertEquals(1, enumMetrics.reads());
+    assertEquals(1, enumMetrics.fallbacks());
+  }
+
+  private static OptionMetrics metrics(final Option<?> option) {
+    for (final OptionMetrics metrics : OptionMetrics.snapshot()) {
+      if (metrics.option() == option) return metrics;
+    }
+    throw new AssertionError("no metrics for " + option);
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * This file is part of option, licensed under the MIT License.
+ *
+ * Copyright (c) 2023 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.option;
+
+import java.lang.ref.WeakReference;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OptionNamespaceTest {
+  @Test
+  void testCloseReleasesIds() {
+    final OptionNamespace first = OptionNamespace.optionNamespace("first");
+    final Option<Boolean> flag = first.booleanOption("namespace.flag", true);
+    assertThrows(IllegalStateException.class, () -> first.booleanOption("namespace.flag", false));
+    assertThrows(IllegalStateException.class, () -> Option.booleanOption("namespace.flag", false));
+
+    final OptionState state = OptionState.optionState().value(flag, false).build();
+    first.close();
+    assertTrue(first.closed());
+    assertThrows(IllegalStateException.class, () -> first.intOption("namespace.other", 1));
+    assertFalse(state.value(flag)); // still readable
+
+    try (final OptionNamespace second = OptionNamespace.optionNamespace("second")) {
+      final Option<Boolean> reloaded = second.booleanOption("namespace.flag", true);
+      assertNotEquals(flag, reloaded);
+      assertFalse(state.has(reloaded));
+      assertTrue(state.value(reloaded));
+      assertTrue(OptionState.optionState().value(reloaded, true).build().value(reloaded));
+    }
+  }
+
+  @Test
+  void testDefaultNamespace() {
+    final Option<Integer> option = Option.intOption("namespace.default", 3);
+    assertEquals("default", OptionNamespace.defaultNamespace().name());
+    assertThrows(UnsupportedOperationException.class, () -> OptionNamespace.defaultNamespace().close());
+    assertThrows(IllegalStateException.class, () -> OptionNamespace.optionNamespace("other").intOption("namespace.default", 3));
+    assertEquals(3, OptionState.emptyOptionState().intValue(option));
+  }
+
+  @Test
+  void testCollectedOptionsAreReleased() throws InterruptedException {
+    final OptionNamespace namespace = OptionNamespace.optionNamespace("collected");
+    Option<Long> option = namespace.longOption("namespace.collected", 1L);
+    final int ordinal = OptionImpl.ordinal(option);
+    final WeakReference<Option<Long>> reference = new WeakReference<>(option);
+    option = null;
+    for (int i = 0; i < 100 && reference.get() != null; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertNull(reference.get());
+
+    final Option<Long> replacement = namespace.longOption("namespace.collected", 2L); // the id was released without closing
+    assertTrue(OptionImpl.ordinal(replacement) <= ordinal);
+    assertEquals(5L, OptionState.optionState().longValue(replacement, 5L).build().longValue(replacement));
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * This file is part of option, licensed under the MIT License.
+ *
+ * Copyright (c) 2023 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.option;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OptionRegistryTest {
+  private static final Option<Boolean>[] OPTIONS = options(2000);
+
+  @SuppressWarnings("unchecked")
+  private static Option<Boolean>[] options(final int count) {
+    final Option<Boolean>[] options = new Option[count];
+    for (int i = 0; i < count; i++) {
+      options[i] = Option.booleanOption("option:test/registry_" + i, false);
+    }
+    return options;
+  }
+
+  @Test
+  void testLookup() {
+    final OptionRegistry registry = OptionRegistry.optionRegistry();
+    for (final Option<Boolean> option : OPTIONS) {
+      registry.register(option);
+    }
+
+    assertFalse(registry.frozen());
+    assertSame(OPTIONS[5], registry.option(OPTIONS[5].id()));
+    assertNull(registry.option("option:test/registry_unknown"));
+  }
+
+  @Test
+  void testFrozenLookup() {
+    final OptionRegistry registry = OptionRegistry.optionRegistry();
+    for (final Option<Boolean> option : OPTIONS) {
+      registry.register(option);
+    }
+    final OptionRegistry frozen = registry.freeze();
+
+    assertTrue(frozen.frozen());
+    assertSame(frozen, frozen.freeze());
+    assertEquals(OPTIONS.length, frozen.options().size());
+    for (final Option<Boolean> option : OPTIONS) {
+      assertSame(option, frozen.option(option.id()));
+      assertSame(option, frozen.option(option.id(), OptionRegistry.hash(option.id())));
+    }
+    assertNull(frozen.option("option:test/registry_unknown"));
+    assertNull(frozen.option(""));
+  }
+
+  @Test
+  void testFrozenHashCollision() {
+    final Option<?>[] options = {OPTIONS[0], OPTIONS[1], OPTIONS[2]};
+    final long[] hashes = {1, 2, 1};
+
+    final IllegalStateException ex = assertThrows(IllegalStateException.class, () -> new OptionRegistryImpl.Frozen(options, hashes));
+    assertTrue(ex.getMessage().contains(OPTIONS[0].id() + " and " + OPTIONS[2].id()));
+  }
+
+  @Test
+  void testFrozenEmpty() {
+    final OptionRegistry frozen = OptionRegistry.optionRegistry().freeze();
+
+    assertNull(frozen.option(OPTIONS[0].id()));
+    assertTrue(frozen.options().isEmpty());
+  }
+
+  @Test
+  void testRegistration() {
+    final OptionRegistry registry = OptionRegistry.optionRegistry()
+      .register(OPTIONS[0])
+      .register(OPTIONS[0]);
+
+    assertThrows(IllegalStateException.class, () -> registry.freeze().register(OPTIONS[1]));
+    registry.register(OPTIONS[1]);
+    assertEquals(2, registry.options().size());
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * This file is part of option, licensed under the MIT License.
+ *
+ * Copyright (c) 2023 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.option;
+
+import net.kyori.option.OptionConfigTest.TestEnum;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OptionViewTest {
+  private static final Option<Boolean> ONE = Option.booleanOption("option:test/view_one", true);
+  private static final Option<Boolean> TWO = Option.booleanOption("option:test/view_two", false);
+  private static final Option<TestEnum> ENUM = Option.enumOption("option:test/view_enum", TestEnum.class, TestEnum.ONE);
+  private static final Option<Boolean> OTHER = Option.booleanOption("option:test/view_other", false);
+
+  @Test
+  void testBind() {
+    final OptionView view = OptionView.optionView(ONE, TWO, ENUM);
+    final OptionState state = OptionState.optionState()
+      .value(TWO, true)
+      .value(ENUM, TestEnum.THREE)
+      .value(OTHER, true)
+      .build();
+
+    final OptionView.Bound bound = view.bind(state);
+    assertTrue(bound.booleanValue(ONE));
+    assertTrue(bound.booleanValue(TWO));
+    assertEquals(TestEnum.THREE, bound.value(ENUM));
+    assertTrue(bound.booleanValue(1));
+    assertEquals(TestEnum.THREE, bound.value(2));
+    assertThrows(IllegalArgumentException.class, () -> bound.value(OTHER));
+    assertThrows(IllegalArgumentException.class, () -> OptionView.optionView(ONE, ONE));
+  }
+
+  @Test
+  void testBindCached() {
+    final OptionView view = OptionView.optionView(ONE, TWO);
+    final LiveOptionState live = OptionState.live(OptionState.emptyOptionState());
+
+    final OptionView.Bound first = view.bind(live);
+    assertSame(first, view.bind(live));
+    assertFalse(first.booleanValue(TWO));
+
+    live.set(OptionState.optionState().value(TWO, true).build());
+    final OptionView.Bound second = view.bind(live);
+    assertNotSame(first, second);
+    assertTrue(second.booleanValue(TWO));
+  }
+}